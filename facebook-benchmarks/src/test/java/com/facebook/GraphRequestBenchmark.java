@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import android.os.Bundle;
+
+import com.facebook.internal.ServerProtocol;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GraphRequestBenchmark {
+    @Param({"1", "10", "50"})
+    public int batchSize;
+
+    private GraphRequestBatch postBatch;
+    private GraphRequestBatch getBatch;
+    private String batchResponse;
+    private URL url;
+
+    @Setup
+    public void setUp() throws Exception {
+        url = new URL(ServerProtocol.getGraphUrlBase());
+
+        postBatch = new GraphRequestBatch();
+        getBatch = new GraphRequestBatch();
+        JSONArray responses = new JSONArray();
+        for (int i = 0; i < batchSize; i++) {
+            Bundle parameters = new Bundle();
+            parameters.putString("access_token", "token" + i);
+            parameters.putString("custom_events", createEventsJson());
+            parameters.putByteArray("payload", new byte[1024]);
+            postBatch.add(new GraphRequest(
+                    null,
+                    "123456789/activities",
+                    parameters,
+                    HttpMethod.POST));
+
+            getBatch.add(new GraphRequest(null, "me"));
+
+            JSONObject body = new JSONObject();
+            body.put("id", Integer.toString(i));
+            body.put("name", "Benchmark User " + i);
+            JSONObject response = new JSONObject();
+            response.put("code", 200);
+            response.put("body", body.toString());
+            responses.put(response);
+        }
+        batchResponse = batchSize == 1
+                ? responses.getJSONObject(0).getString("body")
+                : responses.toString();
+    }
+
+    private static String createEventsJson() throws Exception {
+        JSONArray events = new JSONArray();
+        for (int i = 0; i < 20; i++) {
+            JSONObject event = new JSONObject();
+            event.put("_eventName", "fb_mobile_add_to_cart");
+            event.put("_logTime", 1500000000L + i);
+            event.put("fb_content_id", "HDFU-8452");
+            events.put(event);
+        }
+        return events.toString();
+    }
+
+    @Benchmark
+    public NullConnection serializeBatch() throws Exception {
+        NullConnection connection = new NullConnection(url);
+        GraphRequest.serializeToUrlConnection(postBatch, connection);
+        return connection;
+    }
+
+    @Benchmark
+    public List<GraphResponse> parseBatchResponse() throws Exception {
+        return GraphResponse.createResponsesFromString(batchResponse, null, getBatch);
+    }
+
+    /**
+     * Connection that never touches the network and discards the request body.
+     */
+    static class NullConnection extends HttpURLConnection {
+        long bytesWritten;
+
+        NullConnection(URL url) {
+            super(url);
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return new OutputStream() {
+                @Override
+                public void write(int b) {
+                    bytesWritten++;
+                }
+
+                @Override
+                public void write(byte[] buffer, int offset, int count) {
+                    bytesWritten += count;
+                }
+            };
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+}
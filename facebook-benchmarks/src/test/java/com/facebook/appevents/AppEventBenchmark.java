@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents;
+
+import android.os.Bundle;
+
+import com.facebook.FacebookSdk;
+import com.facebook.GraphRequest;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AppEventBenchmark {
+    private static final UUID SESSION_ID = UUID.fromString("65565271-1ace-4580-bd13-b2bc6d0df035");
+
+    @Param({"10", "100"})
+    public int eventsPerFlush;
+
+    private Bundle parameters;
+    private SessionEventsState sessionEventsState;
+
+    @Setup
+    public void setUp() throws Exception {
+        parameters = new Bundle();
+        parameters.putString("fb_content_type", "product");
+        parameters.putString("fb_content_id", "HDFU-8452");
+        parameters.putString("fb_currency", "USD");
+        parameters.putInt("fb_num_items", 3);
+
+        sessionEventsState = new SessionEventsState(null, "anonymous-guid");
+        for (int i = 0; i < eventsPerFlush; i++) {
+            sessionEventsState.addEvent(createEvent());
+        }
+    }
+
+    private AppEvent createEvent() throws Exception {
+        return new AppEvent(
+                "BenchmarkActivity",
+                "fb_mobile_add_to_cart",
+                9.99,
+                parameters,
+                false,
+                false,
+                SESSION_ID);
+    }
+
+    /**
+     * The cost paid on the thread calling AppEventsLogger.logEvent.
+     */
+    @Benchmark
+    public AppEvent construct() throws Exception {
+        return createEvent();
+    }
+
+    /**
+     * Construction plus the encoding that normally happens on the flush thread.
+     */
+    @Benchmark
+    public JSONObject constructAndEncode() throws Exception {
+        AppEvent appEvent = createEvent();
+        appEvent.isChecksumValid();
+        return appEvent.getJSONObject();
+    }
+
+    @Benchmark
+    public GraphRequest populateRequest() {
+        GraphRequest request = GraphRequest.newPostRequest(
+                null,
+                "123456789/activities",
+                null,
+                null);
+        sessionEventsState.populateRequest(
+                request,
+                FacebookSdk.getApplicationContext(),
+                true,
+                false);
+        // Put the events back so that every invocation sends the same batch.
+        sessionEventsState.clearInFlightAndStats(true);
+        return request;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.facebook.FacebookSdk;
+import com.facebook.appevents.codeless.internal.Constants;
+import com.facebook.appevents.codeless.internal.EventBinding;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches codeless event bindings against a synthetic view tree: a LinearLayout hierarchy with
+ * the given depth and fan-out, with TextViews as leaves. Each binding points at a random leaf.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodelessMatcherBenchmark {
+    private static final int FAN_OUT = 4;
+    private static final String ACTIVITY_NAME = "BenchmarkActivity";
+
+    @Param({"4", "6"})
+    public int depth;
+
+    @Param({"5", "30"})
+    public int bindingCount;
+
+    private View rootView;
+    private List<EventBinding> bindings;
+    private ViewPathTrie trie;
+    private ViewSnapshot snapshot;
+
+    @Setup
+    public void setUp() throws Exception {
+        Context context = FacebookSdk.getApplicationContext();
+        rootView = createTree(context, depth);
+
+        Random random = new Random(depth * 31 + bindingCount);
+        bindings = new ArrayList<>();
+        for (int i = 0; i < bindingCount; i++) {
+            JSONArray path = new JSONArray();
+            path.put(new JSONObject().put("class_name", "android.widget.LinearLayout"));
+            for (int level = 1; level < depth; level++) {
+                path.put(new JSONObject()
+                        .put("class_name", "android.widget.LinearLayout")
+                        .put("index", random.nextInt(FAN_OUT)));
+            }
+            path.put(new JSONObject()
+                    .put("class_name", "android.widget.TextView")
+                    .put("index", random.nextInt(FAN_OUT)));
+
+            JSONObject binding = new JSONObject()
+                    .put("event_name", "event_" + i)
+                    .put("method", "MANUAL")
+                    .put("event_type", "CLICK")
+                    .put("app_version", "1.0")
+                    .put("path", path);
+            bindings.add(EventBinding.getInstanceFromJson(binding));
+        }
+        trie = new ViewPathTrie(bindings, Constants.MAX_TREE_DEPTH);
+        snapshot = trie.capture(rootView);
+    }
+
+    private static View createTree(Context context, int depth) {
+        if (depth == 0) {
+            TextView leaf = new TextView(context);
+            leaf.setText("Leaf");
+            return leaf;
+        }
+        LinearLayout layout = new LinearLayout(context);
+        for (int i = 0; i < FAN_OUT; i++) {
+            layout.addView(createTree(context, depth - 1));
+        }
+        return layout;
+    }
+
+    /**
+     * One walk of the hierarchy per binding, as before the bindings were compiled.
+     */
+    @Benchmark
+    public void findViewByPathPerBinding(Blackhole blackhole) {
+        for (EventBinding binding : bindings) {
+            blackhole.consume(CodelessMatcher.ViewMatcher.findViewByPath(
+                    binding,
+                    rootView,
+                    binding.getViewPath(),
+                    0,
+                    -1,
+                    ACTIVITY_NAME));
+        }
+    }
+
+    /**
+     * The part of a match that stays on the UI thread.
+     */
+    @Benchmark
+    public ViewSnapshot snapshot() {
+        return trie.capture(rootView);
+    }
+
+    /**
+     * The part of a match that runs in the background.
+     */
+    @Benchmark
+    public List<List<CodelessMatcher.MatchedView>> trieMatch() {
+        return trie.match(snapshot, ACTIVITY_NAME);
+    }
+
+    @Benchmark
+    public List<List<CodelessMatcher.MatchedView>> snapshotAndTrieMatch() {
+        return trie.match(trie.capture(rootView), ACTIVITY_NAME);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.benchmarks;
+
+import com.facebook.FacebookSdk;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+
+/**
+ * Entry point for the JMH benchmarks in this module.
+ *
+ * JMH runs in process (no forks) so that the benchmarks share the Robolectric environment set up
+ * for this test; the SDK is initialized once here before any benchmark runs.
+ */
+@Config(manifest = Config.NONE, sdk = 21)
+@RunWith(RobolectricTestRunner.class)
+public class BenchmarkRunnerTest {
+    static final String APPLICATION_ID = "123456789";
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        FacebookSdk.setApplicationId(APPLICATION_ID);
+        FacebookSdk.setAutoLogAppEventsEnabled(false);
+        FacebookSdk.sdkInitialize(RuntimeEnvironment.application);
+        // Use a plain thread pool so that background work, such as cache trims, runs the way it
+        // would on a device instead of waiting for the Robolectric scheduler.
+        FacebookSdk.setExecutor(Executors.newFixedThreadPool(4));
+
+        File results = new File(System.getProperty("benchmark.results", "jmh-results.json"));
+        results.getAbsoluteFile().getParentFile().mkdirs();
+
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", ".*"))
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.getAbsolutePath())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.os.Bundle;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BundleJSONConverterBenchmark {
+    private Bundle bundle;
+    private JSONObject json;
+
+    @Setup
+    public void setUp() throws Exception {
+        bundle = new Bundle();
+        bundle.putString("title", "Benchmark share");
+        bundle.putString("description", "Content shared while benchmarking the SDK");
+        bundle.putBoolean("is_public", true);
+        bundle.putInt("count", 42);
+        bundle.putLong("timestamp", 1500000000000L);
+        bundle.putDouble("price", 9.99);
+        bundle.putStringArray("tags", new String[] {"one", "two", "three", "four"});
+
+        Bundle nested = new Bundle();
+        nested.putString("id", "123456789");
+        nested.putString("type", "product");
+        bundle.putBundle("object", nested);
+
+        json = BundleJSONConverter.convertToJSON(bundle);
+    }
+
+    @Benchmark
+    public JSONObject bundleToJSON() throws Exception {
+        return BundleJSONConverter.convertToJSON(bundle);
+    }
+
+    @Benchmark
+    public Bundle jsonToBundle() throws Exception {
+        return BundleJSONConverter.convertToBundle(json);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cache operations against caches that already hold a given number of entries, so that
+ * put latency can be compared as the population grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileLruCacheBenchmark {
+    private static final int ENTRY_SIZE = 4 * 1024;
+
+    @Param({"100", "1000", "5000"})
+    public int population;
+
+    private FileLruCache cache;
+    private byte[] data;
+    private byte[] readBuffer;
+    private int nextKey;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = new byte[ENTRY_SIZE];
+        new Random(population).nextBytes(data);
+        readBuffer = new byte[ENTRY_SIZE];
+
+        // Every put past the population pushes the cache over its file count and triggers a trim.
+        FileLruCache.Limits limits = new FileLruCache.Limits();
+        limits.setFileCount(population);
+        limits.setByteCount(Integer.MAX_VALUE);
+        cache = new FileLruCache("FileLruCacheBenchmark" + population, limits);
+        cache.clearCache();
+        cache.sizeInBytesForTest();
+
+        for (nextKey = 0; nextKey < population; nextKey++) {
+            put("key" + nextKey);
+        }
+        cache.sizeInBytesForTest();
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.clearCache();
+        cache.sizeInBytesForTest();
+    }
+
+    private void put(String key) throws IOException {
+        OutputStream stream = cache.openPutStream(key);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * A put into a full cache, which evicts the eldest entry on a background trim.
+     */
+    @Benchmark
+    public void put() throws IOException {
+        put("key" + nextKey++);
+    }
+
+    /**
+     * A put followed by waiting for the trim it scheduled to complete.
+     */
+    @Benchmark
+    public void putAndTrim() throws IOException {
+        put("key" + nextKey++);
+        cache.waitForTrimForTest();
+    }
+
+    /**
+     * A read of the most recently written entry.
+     */
+    @Benchmark
+    public int get() throws IOException {
+        InputStream stream = cache.get("key" + (nextKey - 1));
+        if (stream == null) {
+            return 0;
+        }
+        try {
+            int total = 0;
+            int read;
+            while ((read = stream.read(readBuffer)) != -1) {
+                total += read;
+            }
+            return total;
+        } finally {
+            stream.close();
+        }
+    }
+}
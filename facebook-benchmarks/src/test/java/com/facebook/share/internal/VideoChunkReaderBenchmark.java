@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.share.internal;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to upload a whole video in transfer chunks to a local stand-in for the upload
+ * server, which reads each chunk and answers after a fixed latency. Divide {@link #VIDEO_SIZE} by
+ * the score for the throughput.
+ *
+ * {@link #copyThenUpload()} reads each chunk the way VideoUploader did before VideoChunkReader,
+ * through a ByteArrayOutputStream and only once the previous transfer had completed.
+ * {@link #readAheadThenUpload()} reads the next chunk while the current one is in flight, the
+ * way VideoUploader does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VideoChunkReaderBenchmark {
+    private static final int VIDEO_SIZE = 16 * 1024 * 1024;
+
+    @Param({"1048576", "4194304"})
+    public int chunkSize;
+
+    @Param({"0", "20"})
+    public int serverLatencyMillis;
+
+    private File video;
+    private HttpServer server;
+    private URL uploadUrl;
+    private ExecutorService readAheadExecutor;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] data = new byte[VIDEO_SIZE];
+        new Random(chunkSize).nextBytes(data);
+        video = File.createTempFile("VideoChunkReaderBenchmark", ".mp4");
+        OutputStream out = new FileOutputStream(video);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/upload", new HttpHandler() {
+            private final byte[] discard = new byte[64 * 1024];
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream body = exchange.getRequestBody();
+                while (body.read(discard) != -1) {
+                }
+                if (serverLatencyMillis > 0) {
+                    try {
+                        Thread.sleep(serverLatencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] response = "{\"success\":true}".getBytes("UTF-8");
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            }
+        });
+        server.start();
+        uploadUrl = new URL(
+                "http", "127.0.0.1", server.getAddress().getPort(), "/upload");
+        readAheadExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        readAheadExecutor.shutdown();
+        server.stop(0);
+        video.delete();
+    }
+
+    @Benchmark
+    public long copyThenUpload() throws IOException {
+        InputStream stream = new FileInputStream(video);
+        try {
+            long uploaded = 0;
+            while (uploaded < VIDEO_SIZE) {
+                int length = (int) Math.min(chunkSize, VIDEO_SIZE - uploaded);
+                uploaded += upload(copyChunk(stream, length));
+            }
+            return uploaded;
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Benchmark
+    public long readAheadThenUpload() throws Exception {
+        InputStream stream = new FileInputStream(video);
+        try {
+            final VideoChunkReader reader = new VideoChunkReader(stream);
+            long uploaded = 0;
+            while (uploaded < VIDEO_SIZE) {
+                long end = Math.min(uploaded + chunkSize, VIDEO_SIZE);
+                byte[] chunk = reader.readChunk(uploaded, end);
+                final int readAheadSize = (int) Math.min(chunkSize, VIDEO_SIZE - end);
+                Future<?> readAhead = null;
+                if (readAheadSize > 0) {
+                    readAhead = readAheadExecutor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                reader.readAhead(readAheadSize);
+                            } catch (IOException e) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                    });
+                }
+                uploaded += upload(chunk);
+                if (readAhead != null) {
+                    readAhead.get();
+                }
+            }
+            return uploaded;
+        } finally {
+            stream.close();
+        }
+    }
+
+    // The chunk read VideoUploader.getChunk used before VideoChunkReader.
+    private static byte[] copyChunk(InputStream stream, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[Math.min(8192, length)];
+        int remaining = length;
+        while (remaining > 0) {
+            int read = stream.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new IOException("Video ended early");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return out.toByteArray();
+    }
+
+    private int upload(byte[] chunk) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) uploadUrl.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(chunk.length);
+            OutputStream out = connection.getOutputStream();
+            out.write(chunk);
+            out.close();
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Upload failed: " + connection.getResponseCode());
+            }
+            InputStream in = connection.getInputStream();
+            while (in.read() != -1) {
+            }
+            in.close();
+            return chunk.length;
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import android.os.Looper;
 import android.support.v4.content.LocalBroadcastManager;
 import android.util.Log;
 
+import com.facebook.internal.StartupTrace;
 import com.facebook.internal.Utility;
 import com.facebook.internal.Validate;
 
@@ -101,14 +102,19 @@ final public class AccessTokenManager {
     }
 
     boolean loadCurrentAccessToken() {
-        AccessToken accessToken = accessTokenCache.load();
+        long startTimeNanos = StartupTrace.begin();
+        try {
+            AccessToken accessToken = accessTokenCache.load();
 
-        if (accessToken != null) {
-            setCurrentAccessToken(accessToken, false);
-            return true;
-        }
+            if (accessToken != null) {
+                setCurrentAccessToken(accessToken, false);
+                return true;
+            }
 
-        return false;
+            return false;
+        } finally {
+            StartupTrace.end(StartupTraceListener.SPAN_LOAD_ACCESS_TOKEN, startTimeNanos);
+        }
     }
 
     void setCurrentAccessToken(AccessToken currentAccessToken) {
@@ -130,6 +136,13 @@ final public class AccessTokenManager {
             }
         }
 
+        // Cached responses belong to the previous user. Loading the first token keeps them.
+        if (oldAccessToken != null
+                && (currentAccessToken == null
+                        || !oldAccessToken.getToken().equals(currentAccessToken.getToken()))) {
+            GraphResponseCache.getInstance().clear();
+        }
+
         if (!Utility.areObjectsEqual(oldAccessToken, currentAccessToken)) {
             sendCurrentAccessTokenChangedBroadcastIntent(oldAccessToken, currentAccessToken);
             setTokenExpirationBroadcastAlarm();
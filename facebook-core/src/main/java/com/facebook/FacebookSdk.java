@@ -36,12 +36,15 @@ import com.facebook.appevents.AppEventsLogger;
 import com.facebook.appevents.internal.ActivityLifecycleTracker;
 import com.facebook.core.BuildConfig;
 import com.facebook.appevents.internal.AppEventsLoggerUtility;
+import com.facebook.internal.FetchedAppSettings;
 import com.facebook.internal.FetchedAppSettingsManager;
 import com.facebook.internal.LockOnGetVariable;
 import com.facebook.internal.BoltsMeasurementEventListener;
 import com.facebook.internal.AttributionIdentifiers;
 import com.facebook.internal.NativeProtocol;
 import com.facebook.internal.ServerProtocol;
+import com.facebook.internal.StartupScheduler;
+import com.facebook.internal.StartupTrace;
 import com.facebook.internal.Utility;
 import com.facebook.internal.Validate;
 
@@ -55,6 +58,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -78,8 +82,11 @@ public final class FacebookSdk {
     private static volatile String facebookDomain = FACEBOOK_COM;
     private static AtomicLong onProgressThreshold = new AtomicLong(65536);
     private static volatile boolean isDebugEnabled = BuildConfig.DEBUG;
+    private static volatile boolean isGraphRequestCoalescingEnabled = false;
+    private static volatile boolean isGraphRequestDeduplicationEnabled = false;
     private static boolean isLegacyTokenUpgradeSupported = false;
     private static LockOnGetVariable<File> cacheDir;
+    private static volatile StartupScheduler startupScheduler;
     private static Context applicationContext;
     private static int callbackRequestCodeOffset = DEFAULT_CALLBACK_REQUEST_CODE_OFFSET;
     private static final Object LOCK = new Object();
@@ -147,6 +154,28 @@ public final class FacebookSdk {
      */
     public static final String CALLBACK_OFFSET_PROPERTY = "com.facebook.sdk.CallbackOffset";
 
+    /**
+     * The startup stage that loads the app settings, from the cache and then from the network.
+     */
+    public static final String STARTUP_STAGE_APP_SETTINGS = "app_settings";
+
+    /**
+     * The startup stage that finds the protocol versions supported by the Facebook apps installed
+     * on the device.
+     */
+    public static final String STARTUP_STAGE_NATIVE_PROTOCOL = "native_protocol";
+
+    /**
+     * The startup stage that loads the current access token and profile.
+     */
+    public static final String STARTUP_STAGE_ACCESS_TOKEN = "access_token";
+
+    /**
+     * The startup stage that initializes app events and flushes the events persisted during the
+     * last run. Starts after {@link #STARTUP_STAGE_ACCESS_TOKEN}.
+     */
+    public static final String STARTUP_STAGE_APP_EVENTS = "app_events";
+
     private static Boolean sdkInitialized = false;
     private static Boolean sdkFullyInitialized = false;
 
@@ -264,6 +293,7 @@ public final class FacebookSdk {
             return;
         }
 
+        long startTimeNanos = StartupTrace.begin();
         Validate.notNull(applicationContext, "applicationContext");
 
         // Don't throw for these validations here, just log an error. We'll throw when we actually
@@ -304,12 +334,6 @@ public final class FacebookSdk {
             );
         }
 
-        // Load app settings from network so that dialog configs are available
-        FetchedAppSettingsManager.loadAppSettingsAsync();
-
-        // Fetch available protocol versions from the apps on the device
-        NativeProtocol.updateAllAvailableProtocolVersionsAsync();
-
         BoltsMeasurementEventListener.getInstance(FacebookSdk.applicationContext);
 
         cacheDir = new LockOnGetVariable<File>(
@@ -319,35 +343,128 @@ public final class FacebookSdk {
                         return FacebookSdk.applicationContext.getCacheDir();
                     }
                 });
-        FutureTask<Void> futureTask =
-                new FutureTask<>(new Callable<Void>() {
+
+        StartupScheduler scheduler = new StartupScheduler(getExecutor());
+
+        // Load app settings from network so that dialog configs are available
+        scheduler.addAsyncStage(
+                STARTUP_STAGE_APP_SETTINGS,
+                new StartupScheduler.AsyncStageTask() {
                     @Override
-                    public Void call() throws Exception {
-                        AccessTokenManager.getInstance().loadCurrentAccessToken();
-                        ProfileManager.getInstance().loadCurrentProfile();
-                        if (AccessToken.isCurrentAccessTokenActive() &&
-                                Profile.getCurrentProfile() == null) {
-                            // Access token and profile went out of sync due to a network or caching
-                            // issue, retry
-                            Profile.fetchProfileForCurrentAccessToken();
-                        }
-
-                        if (callback != null) {
-                            callback.onInitialized();
-                        }
-
-                        AppEventsLogger.initializeLib(
-                                FacebookSdk.applicationContext,
-                                applicationId);
-
-                        // Flush any app events that might have been persisted during last run.
-                        AppEventsLogger.newLogger(
-                                applicationContext.getApplicationContext()).flush();
-
-                        return null;
+                    public void start(final Runnable onFinished) {
+                        FetchedAppSettingsManager.getAppSettingsAsync(
+                                new FetchedAppSettingsManager.FetchedAppSettingsCallback() {
+                                    @Override
+                                    public void onSuccess(FetchedAppSettings settings) {
+                                        onFinished.run();
+                                    }
+
+                                    @Override
+                                    public void onError() {
+                                        onFinished.run();
+                                    }
+                                });
                     }
                 });
-        getExecutor().execute(futureTask);
+
+        // Fetch available protocol versions from the apps on the device
+        scheduler.addStage(STARTUP_STAGE_NATIVE_PROTOCOL, new Runnable() {
+            @Override
+            public void run() {
+                NativeProtocol.updateAllAvailableProtocolVersions();
+            }
+        });
+
+        scheduler.addStage(STARTUP_STAGE_ACCESS_TOKEN, new Runnable() {
+            @Override
+            public void run() {
+                AccessTokenManager.getInstance().loadCurrentAccessToken();
+                ProfileManager.getInstance().loadCurrentProfile();
+                if (AccessToken.isCurrentAccessTokenActive() &&
+                        Profile.getCurrentProfile() == null) {
+                    // Access token and profile went out of sync due to a network or caching
+                    // issue, retry
+                    Profile.fetchProfileForCurrentAccessToken();
+                }
+
+                if (callback != null) {
+                    callback.onInitialized();
+                }
+            }
+        });
+
+        scheduler.addStage(STARTUP_STAGE_APP_EVENTS, new Runnable() {
+            @Override
+            public void run() {
+                AppEventsLogger.initializeLib(
+                        FacebookSdk.applicationContext,
+                        applicationId);
+
+                // Flush any app events that might have been persisted during last run.
+                AppEventsLogger.newLogger(
+                        applicationContext.getApplicationContext()).flush();
+            }
+        }, STARTUP_STAGE_ACCESS_TOKEN);
+
+        startupScheduler = scheduler;
+        scheduler.start();
+
+        StartupTrace.end(StartupTraceListener.SPAN_SDK_INITIALIZE, startTimeNanos);
+    }
+
+    /**
+     * Sets the listener that receives a timed span for each step of SDK startup. The spans of
+     * steps that already ran are delivered to the listener right away.
+     *
+     * @param listener the listener, or null to stop listening
+     */
+    public static void setStartupTraceListener(StartupTraceListener listener) {
+        StartupTrace.setListener(listener);
+    }
+
+    /**
+     * Returns the listener that receives the spans of SDK startup.
+     *
+     * @return the listener, or null if none is set
+     */
+    public static StartupTraceListener getStartupTraceListener() {
+        return StartupTrace.getListener();
+    }
+
+    /**
+     * Indicates whether a stage of SDK startup has finished. Does not block.
+     *
+     * @param stage one of the STARTUP_STAGE_ constants, e.g. {@link #STARTUP_STAGE_ACCESS_TOKEN}
+     * @return true if the stage has finished
+     */
+    public static boolean isStartupStageFinished(String stage) {
+        Validate.sdkInitialized();
+        return startupScheduler.isFinished(stage);
+    }
+
+    /**
+     * Waits for a stage of SDK startup to finish. The app settings stage is finished on the main
+     * thread, so this must not be called on the main thread.
+     *
+     * @param stage   one of the STARTUP_STAGE_ constants, e.g. {@link #STARTUP_STAGE_ACCESS_TOKEN}
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the stage finished, false if the timeout elapsed first
+     */
+    public static boolean awaitStartupStage(String stage, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Validate.sdkInitialized();
+        return startupScheduler.awaitFinished(stage, timeout, unit);
+    }
+
+    /**
+     * Returns how long each finished stage of SDK startup ran.
+     *
+     * @return the duration in milliseconds of each finished stage, by stage name
+     */
+    public static Map<String, Long> getStartupStageDurations() {
+        Validate.sdkInitialized();
+        return startupScheduler.getStageDurationsMillis();
     }
 
     /**
@@ -465,6 +582,42 @@ public final class FacebookSdk {
         isDebugEnabled = enabled;
     }
 
+    /**
+     * Indicates if the SDK's own background Graph requests, such as the app settings and
+     * gatekeeper fetches, are coalesced into batches.
+     */
+    public static boolean isGraphRequestCoalescingEnabled() {
+        return isGraphRequestCoalescingEnabled;
+    }
+
+    /**
+     * Used to coalesce the SDK's own background Graph requests. When enabled, those requests are
+     * held for a short window and the ones made during it are sent as a single batch, so that
+     * startup makes one round-trip instead of several. Defaults to false.
+     * @param enabled true to coalesce requests, false to send each one as it is made
+     */
+    public static void setGraphRequestCoalescingEnabled(boolean enabled) {
+        isGraphRequestCoalescingEnabled = enabled;
+    }
+
+    /**
+     * Indicates if concurrent executions of the same Graph GET share a single network call.
+     */
+    public static boolean isGraphRequestDeduplicationEnabled() {
+        return isGraphRequestDeduplicationEnabled;
+    }
+
+    /**
+     * Used to let concurrent executions of the same single Graph GET share a network call. When
+     * enabled, an execution that finds an identical request already in flight waits for it and
+     * receives a copy of its response, which is published before the first request's callbacks
+     * run. Defaults to false.
+     * @param enabled true to share identical GETs, false to send each one as it is executed
+     */
+    public static void setGraphRequestDeduplicationEnabled(boolean enabled) {
+        isGraphRequestDeduplicationEnabled = enabled;
+    }
+
     /**
      * Indicates if the SDK should fallback and read the legacy token. This is turned off by default
      * for performance.
@@ -492,6 +645,10 @@ public final class FacebookSdk {
     /**
      * Returns the Executor used by the SDK for non-AsyncTask background work.
      *
+     * Graph requests executed asynchronously, such as with {@link GraphRequest#executeAsync()},
+     * do not run on this Executor but on threads owned by the SDK, with separate limits for
+     * requests the user is waiting on and for background traffic.
+     *
      * By default this uses AsyncTask Executor via reflection if the API level is high enough.
      * Otherwise this creates a new Executor with defaults similar to those used in AsyncTask.
      *
@@ -509,6 +666,10 @@ public final class FacebookSdk {
     /**
      * Sets the Executor used by the SDK for non-AsyncTask background work.
      *
+     * Graph requests executed asynchronously, such as with {@link GraphRequest#executeAsync()},
+     * do not run on this Executor but on threads owned by the SDK, with separate limits for
+     * requests the user is waiting on and for background traffic.
+     *
      * @param executor
      *          the Executor to use; must not be null.
      */
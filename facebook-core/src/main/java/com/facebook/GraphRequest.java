@@ -25,6 +25,7 @@ import android.graphics.Bitmap;
 import android.location.Location;
 import android.net.Uri;
 import android.os.*;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.Pair;
@@ -43,6 +44,7 @@ import java.net.URLEncoder;
 import java.text.SimpleDateFormat;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
@@ -126,6 +128,7 @@ public class GraphRequest {
     private static final String GRAPH_PATH_FORMAT = "%s/%s";
 
     private static String defaultBatchApplicationId;
+    private static volatile HttpTransport httpTransport = new KeepAliveHttpTransport();
 
     // Group 1 in the pattern is the path without the version info
     private static Pattern versionPattern = Pattern.compile("^/?v\\d+\\.\\d+/(.*)");
@@ -143,6 +146,7 @@ public class GraphRequest {
     private Object tag;
     private String version;
     private boolean skipClientToken = false;
+    private boolean responseCacheEnabled = false;
 
     static {
         // Multipart chars
@@ -770,6 +774,36 @@ public class GraphRequest {
         this.skipClientToken = skipClientToken;
     }
 
+    /**
+     * Returns whether the response to this request may be served from, and stored in, the SDK's
+     * response cache.
+     *
+     * @return true if the response cache is enabled for this request
+     */
+    public final boolean isResponseCacheEnabled() {
+        return this.responseCacheEnabled;
+    }
+
+    /**
+     * Sets whether the response to this GET request may be served from, and stored in, the SDK's
+     * response cache. Responses are cached for as long as the server's Cache-Control max-age
+     * allows, and revalidated with their ETag once stale. Only requests executed on their own,
+     * not as part of a larger batch, use the cache. Defaults to false.
+     *
+     * @param responseCacheEnabled true to enable the response cache for this request
+     */
+    public final void setResponseCacheEnabled(boolean responseCacheEnabled) {
+        this.responseCacheEnabled = responseCacheEnabled;
+    }
+
+    /**
+     * Removes every response stored by requests that enabled the response cache. The cache is
+     * also cleared whenever the current access token is replaced or cleared.
+     */
+    public static void clearResponseCache() {
+        GraphResponseCache.getInstance().clear();
+    }
+
     /**
      * Returns the parameters for this request.
      *
@@ -901,6 +935,19 @@ public class GraphRequest {
         defaultBatchApplicationId = applicationId;
     }
 
+    static HttpTransport getHttpTransport() {
+        return httpTransport;
+    }
+
+    /**
+     * Sets the transport that opens the connections requests are serialized into and takes them
+     * back after the responses have been read. Defaults to a {@link KeepAliveHttpTransport}.
+     */
+    static void setHttpTransport(HttpTransport transport) {
+        Validate.notNull(transport, "transport");
+        httpTransport = transport;
+    }
+
     /**
      * Returns the callback which will be called when the request finishes.
      *
@@ -1006,6 +1053,8 @@ public class GraphRequest {
      * (see the {@link #setCallback(Callback) setCallback} method).
      * <p/>
      * This should only be called from the UI thread.
+     * <p/>
+     * The request runs on a thread owned by the SDK, not on {@link FacebookSdk#getExecutor()}.
      *
      * @return a RequestAsyncTask that is executing the request
      * @throws IllegalArgumentException
@@ -1083,9 +1132,12 @@ public class GraphRequest {
 
             serializeToUrlConnection(requests, connection);
         } catch (IOException | JSONException e) {
-            Utility.disconnectQuietly(connection);
+            httpTransport.releaseConnection(connection, false);
 
             throw new FacebookException("could not construct request body", e);
+        } catch (RuntimeException e) {
+            httpTransport.releaseConnection(connection, false);
+            throw e;
         }
 
         return connection;
@@ -1147,8 +1199,9 @@ public class GraphRequest {
     }
 
     /**
-     * Executes requests on the current thread as a single batch and blocks while waiting for the
-     * responses.
+     * Executes requests as a single batch and blocks while waiting for the responses. The batch is
+     * sent on the current thread, unless it runs at background priority, in which case it is sent
+     * and its callbacks are run on an SDK thread.
      * <p/>
      * This should only be used if you have transitioned off the UI thread.
      *
@@ -1160,29 +1213,148 @@ public class GraphRequest {
      * @throws IllegalArgumentException if the passed in RequestBatch is empty
      * @throws NullPointerException     if the passed in RequestBatch or any of its contents are
      *                                  null
+     * @see GraphRequestBatch#setBackgroundPriority(boolean)
      */
-    public static List<GraphResponse> executeBatchAndWait(GraphRequestBatch requests) {
+    public static List<GraphResponse> executeBatchAndWait(final GraphRequestBatch requests) {
         Validate.notEmptyAndContainsNoNulls(requests, "requests");
 
-        HttpURLConnection connection = null;
-        try {
+        if (requests.isBackgroundPriority()) {
+            return GraphRequestExecutor.getInstance().executeAndWait(
+                    new Callable<List<GraphResponse>>() {
+                        @Override
+                        public List<GraphResponse> call() {
+                            return executeBatchOnCurrentThreadAndWait(requests);
+                        }
+                    },
+                    true);
+        }
+        return executeBatchOnCurrentThreadAndWait(requests);
+    }
+
+    private static List<GraphResponse> executeBatchOnCurrentThreadAndWait(
+            GraphRequestBatch requests) {
+
+        // When enabled, identical GETs already in flight share their network call.
+        String key = GraphRequestDeduplicator.getKey(requests);
+        GraphRequestDeduplicator.Call call =
+                key != null ? GraphRequestDeduplicator.join(key) : null;
+        if (call == null) {
+            return executeBatchOnConnectionAndWait(requests, null);
+        }
+
+        if (call.isLeader()) {
             try {
-                connection = toHttpConnection(requests);
-            } catch (Exception ex) {
-                List<GraphResponse> responses = GraphResponse.constructErrorResponses(
-                        requests.getRequests(),
-                        null,
-                        new FacebookException(ex));
-                runCallbacks(requests, responses);
-                return responses;
+                // Publishes the response to the waiting executions before running callbacks.
+                return executeBatchOnConnectionAndWait(requests, call);
+            } finally {
+                // No-op if the response was published.
+                call.complete(null);
             }
+        }
 
-            List<GraphResponse> responses = executeConnectionAndWait(connection, requests);
+        GraphResponse response = call.await(requests.get(0));
+        if (response == null) {
+            // The leader failed without a response; try on our own.
+            return executeBatchOnConnectionAndWait(requests, null);
+        }
+        List<GraphResponse> responses = Collections.singletonList(response);
+        runCallbacks(requests, responses);
+        return responses;
+    }
+
+    private static List<GraphResponse> executeBatchOnConnectionAndWait(
+            GraphRequestBatch requests,
+            @Nullable GraphRequestDeduplicator.Call call) {
+        String cacheKey = GraphResponseCache.getKey(requests);
+        GraphResponseCache.Entry cached = null;
+        if (cacheKey != null) {
+            cached = GraphResponseCache.getInstance().get(cacheKey);
+            if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+                List<GraphResponse> responses =
+                        GraphResponseCache.createResponses(cached, requests);
+                if (responses != null) {
+                    runCallbacks(requests, responses, null, call);
+                    return responses;
+                }
+            }
+        }
 
+        HttpURLConnection connection;
+        try {
+            // toHttpConnection releases the connection itself if it fails.
+            connection = toHttpConnection(requests);
+        } catch (Exception ex) {
+            List<GraphResponse> responses = GraphResponse.constructErrorResponses(
+                    requests.getRequests(),
+                    null,
+                    new FacebookException(ex));
+            runCallbacks(requests, responses, null, call);
             return responses;
-        } finally {
-            Utility.disconnectQuietly(connection);
         }
+
+        // Both paths release the connection once they are done reading from it.
+        if (cacheKey != null) {
+            return executeCachedConnectionAndWait(connection, requests, cacheKey, cached, call);
+        }
+        return executeConnectionAndWait(connection, requests, call);
+    }
+
+    private static List<GraphResponse> executeCachedConnectionAndWait(
+            HttpURLConnection connection,
+            GraphRequestBatch requests,
+            String cacheKey,
+            GraphResponseCache.Entry cached,
+            @Nullable GraphRequestDeduplicator.Call call) {
+        GraphResponseCache cache = GraphResponseCache.getInstance();
+        int generation = cache.getGeneration();
+
+        int responseCode;
+        try {
+            GraphResponseCache.addConditionalHeaders(connection, cached);
+            responseCode = connection.getResponseCode();
+        } catch (IOException e) {
+            // Let the usual path turn the failure into error responses.
+            return executeConnectionAndWait(connection, requests, call);
+        } catch (RuntimeException e) {
+            httpTransport.releaseConnection(connection, false);
+            throw e;
+        }
+        long now = System.currentTimeMillis();
+        String cacheControl = GraphResponseCache.getCacheControl(connection);
+        String etag = GraphResponseCache.getETag(connection);
+
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            List<GraphResponse> responses = GraphResponseCache.createResponses(cached, requests);
+            if (responses != null) {
+                GraphResponseCache.Entry refreshed = GraphResponseCache.createEntry(
+                        cacheControl, etag != null ? etag : cached.etag, cached.body, now);
+                if (refreshed != null) {
+                    cache.put(cacheKey, refreshed, generation);
+                }
+                httpTransport.releaseConnection(connection, true);
+                Logger.log(LoggingBehavior.REQUESTS, "Response",
+                        "Response\n  Id: %s\n  Not modified, using the cached response\n",
+                        requests.getId());
+                runCallbacks(requests, responses, null, call);
+
+                // Try extending the current access token in case it's needed.
+                AccessTokenManager.getInstance().extendAccessTokenIfNeeded();
+                return responses;
+            }
+        }
+
+        List<GraphResponse> responses = executeConnectionAndWait(connection, requests, call);
+        GraphResponse response = responses.get(0);
+        if (responseCode == HttpURLConnection.HTTP_OK
+                && response.getError() == null
+                && response.getRawResponse() != null) {
+            GraphResponseCache.Entry entry = GraphResponseCache.createEntry(
+                    cacheControl, etag, response.getRawResponse(), now);
+            if (entry != null) {
+                cache.put(cacheKey, entry, generation);
+            }
+        }
+        return responses;
     }
 
     /**
@@ -1227,6 +1399,8 @@ public class GraphRequest {
      * (see the {@link #setCallback(Callback) setCallback} method).
      * <p/>
      * This should only be called from the UI thread.
+     * <p/>
+     * The request runs on a thread owned by the SDK, not on {@link FacebookSdk#getExecutor()}.
      *
      * @param requests the RequestBatch to execute
      * @return a RequestAsyncTask that is executing the request
@@ -1238,7 +1412,8 @@ public class GraphRequest {
         Validate.notEmptyAndContainsNoNulls(requests, "requests");
 
         GraphRequestAsyncTask asyncTask = new GraphRequestAsyncTask(requests);
-        asyncTask.executeOnExecutor(FacebookSdk.getExecutor());
+        asyncTask.executeOnExecutor(
+                GraphRequestExecutor.getInstance().getExecutor(requests.isBackgroundPriority()));
         return asyncTask;
     }
 
@@ -1278,10 +1453,39 @@ public class GraphRequest {
      */
     public static List<GraphResponse> executeConnectionAndWait(
             HttpURLConnection connection,
-            GraphRequestBatch requests) {
-        List<GraphResponse> responses = GraphResponse.fromHttpConnection(connection, requests);
+            final GraphRequestBatch requests) {
+        return executeConnectionAndWait(connection, requests, null);
+    }
 
-        Utility.disconnectQuietly(connection);
+    private static List<GraphResponse> executeConnectionAndWait(
+            HttpURLConnection connection,
+            final GraphRequestBatch requests,
+            @Nullable GraphRequestDeduplicator.Call call) {
+        final boolean[] callbacksRun = new boolean[requests.size()];
+        List<GraphResponse> responses = null;
+        // This is the only place a connection that was handed over gets released, exactly once.
+        try {
+            // A shared response has to be published before its callback runs, so it isn't
+            // streamed.
+            if (requests.isStreamingResponsesEnabled() && call == null) {
+                responses = GraphResponse.fromHttpConnection(
+                        connection,
+                        requests,
+                        new GraphResponseStreamParser.Listener() {
+                            @Override
+                            public void onResponse(int index, GraphResponse response) {
+                                callbacksRun[index] = true;
+                                runCallback(requests, requests.get(index), response);
+                            }
+                        });
+            } else {
+                responses = GraphResponse.fromHttpConnection(connection, requests);
+            }
+        } finally {
+            httpTransport.releaseConnection(
+                    connection,
+                    responses != null && isConnectionReusable(connection, responses));
+        }
 
         int numRequests = requests.size();
         if (numRequests != responses.size()) {
@@ -1292,7 +1496,7 @@ public class GraphRequest {
                             numRequests));
         }
 
-        runCallbacks(requests, responses);
+        runCallbacks(requests, responses, callbacksRun, call);
 
         // Try extending the current access token in case it's needed.
         AccessTokenManager.getInstance().extendAccessTokenIfNeeded();
@@ -1347,7 +1551,8 @@ public class GraphRequest {
 
         GraphRequestAsyncTask asyncTask = new GraphRequestAsyncTask(connection, requests);
         requests.setCallbackHandler(callbackHandler);
-        asyncTask.executeOnExecutor(FacebookSdk.getExecutor());
+        asyncTask.executeOnExecutor(
+                GraphRequestExecutor.getInstance().getExecutor(requests.isBackgroundPriority()));
         return asyncTask;
     }
 
@@ -1375,12 +1580,37 @@ public class GraphRequest {
     }
 
     static void runCallbacks(final GraphRequestBatch requests, List<GraphResponse> responses) {
+        runCallbacks(requests, responses, null);
+    }
+
+    // Publishes the response of a shared call to the executions waiting for it, then runs the
+    // callbacks.
+    private static void runCallbacks(
+            GraphRequestBatch requests,
+            List<GraphResponse> responses,
+            boolean[] callbacksAlreadyRun,
+            @Nullable GraphRequestDeduplicator.Call call) {
+        if (call != null) {
+            call.complete(responses.get(0));
+        }
+        runCallbacks(requests, responses, callbacksAlreadyRun);
+    }
+
+    private static void runCallbacks(
+            final GraphRequestBatch requests,
+            List<GraphResponse> responses,
+            boolean[] callbacksAlreadyRun) {
         int numRequests = requests.size();
+        boolean anyCallbackAlreadyRun = false;
 
         // Compile the list of callbacks to call and then run them either on this thread or via the
         // Handler we received
         final ArrayList<Pair<Callback, GraphResponse>> callbacks = new ArrayList<Pair<Callback, GraphResponse>>();
         for (int i = 0; i < numRequests; ++i) {
+            if (callbacksAlreadyRun != null && callbacksAlreadyRun[i]) {
+                anyCallbackAlreadyRun = true;
+                continue;
+            }
             GraphRequest request = requests.get(i);
             if (request.callback != null) {
                 callbacks.add(
@@ -1388,7 +1618,7 @@ public class GraphRequest {
             }
         }
 
-        if (callbacks.size() > 0) {
+        if (callbacks.size() > 0 || anyCallbackAlreadyRun) {
             Runnable runnable = new Runnable() {
                 public void run() {
                     for (Pair<Callback, GraphResponse> pair : callbacks) {
@@ -1413,13 +1643,38 @@ public class GraphRequest {
         }
     }
 
+    // Runs a single request's callback as soon as its response is available, using the same
+    // thread or Handler that runCallbacks would.
+    private static void runCallback(
+            GraphRequestBatch requests,
+            GraphRequest request,
+            final GraphResponse response) {
+        final Callback callback = request.callback;
+        if (callback == null) {
+            return;
+        }
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                callback.onCompleted(response);
+            }
+        };
+
+        Handler callbackHandler = requests.getCallbackHandler();
+        if (callbackHandler == null) {
+            runnable.run();
+        } else {
+            callbackHandler.post(runnable);
+        }
+    }
+
     private static String getDefaultPhotoPathIfNull(String graphPath) {
         return graphPath == null ? MY_PHOTOS : graphPath;
     }
 
     private static HttpURLConnection createConnection(URL url) throws IOException {
         HttpURLConnection connection;
-        connection = (HttpURLConnection) url.openConnection();
+        connection = httpTransport.openConnection(url);
 
         connection.setRequestProperty(USER_AGENT_HEADER, getUserAgent());
         connection.setRequestProperty(ACCEPT_LANGUAGE_HEADER, Locale.getDefault().toString());
@@ -1429,6 +1684,27 @@ public class GraphRequest {
     }
 
 
+    // The response stream has been read and closed by the time responses exist. Only a failure
+    // to talk to the server, which leaves no HTTP status, means the socket can't be reused.
+    private static boolean isConnectionReusable(
+            HttpURLConnection connection,
+            List<GraphResponse> responses) {
+        if (responses.isEmpty()) {
+            return false;
+        }
+        for (GraphResponse response : responses) {
+            if (response.getConnection() != connection) {
+                return false;
+            }
+            FacebookRequestError error = response.getError();
+            if (error != null && error.getRequestStatusCode()
+                    == FacebookRequestError.INVALID_HTTP_STATUS_CODE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void addCommonParameters() {
         if (this.accessToken != null) {
             if (!this.parameters.containsKey(ACCESS_TOKEN_PARAM)) {
@@ -1523,6 +1799,23 @@ public class GraphRequest {
         return appendParametersToBaseUrl(baseUrl, false);
     }
 
+    /**
+     * Returns the URL {@link #getUrlForSingleRequest()} would build, without adding the common
+     * parameters to this request.
+     */
+    final String peekUrlForSingleRequest() {
+        GraphRequest copy = new GraphRequest(
+                accessToken,
+                graphPath,
+                parameters,
+                httpMethod,
+                null,
+                version);
+        copy.overriddenURL = overriddenURL;
+        copy.skipClientToken = skipClientToken;
+        return copy.getUrlForSingleRequest();
+    }
+
     private String getGraphPathWithVersion() {
         Matcher matcher = versionPattern.matcher(this.graphPath);
         if (matcher.matches()) {
@@ -1735,17 +2028,20 @@ public class GraphRequest {
             }
 
             if (hasOnProgressCallbacks(requests)) {
-                ProgressNoopOutputStream countingStream = null;
-                countingStream = new ProgressNoopOutputStream(requests.getCallbackHandler());
-                processRequest(requests, null, numRequests, url, countingStream, shouldUseGzip);
+                // Serialize once into a buffer to learn the size of every request, then replay
+                // the buffer, streaming any attachments, through the progress reporting stream.
+                ProgressBufferingOutputStream bufferingStream =
+                        new ProgressBufferingOutputStream(requests.getCallbackHandler());
+                processRequest(requests, logger, numRequests, url, bufferingStream, shouldUseGzip);
 
-                int max = countingStream.getMaxProgress();
-                Map<GraphRequest, RequestProgress> progressMap = countingStream.getProgressMap();
+                int max = bufferingStream.getMaxProgress();
+                Map<GraphRequest, RequestProgress> progressMap = bufferingStream.getProgressMap();
 
                 outputStream = new ProgressOutputStream(outputStream, requests, progressMap, max);
+                bufferingStream.writeTo(outputStream);
+            } else {
+                processRequest(requests, logger, numRequests, url, outputStream, shouldUseGzip);
             }
-
-            processRequest(requests, logger, numRequests, url, outputStream, shouldUseGzip);
         } finally {
             if (outputStream != null) {
                 outputStream.close();
@@ -2129,7 +2425,11 @@ public class GraphRequest {
 
         public void writeBytes(String key, byte[] bytes) throws IOException {
             writeContentDisposition(key, key, "content/unknown");
-            this.outputStream.write(bytes);
+            if (outputStream instanceof ProgressBufferingOutputStream) {
+                ((ProgressBufferingOutputStream) outputStream).writeBytesReference(bytes);
+            } else {
+                this.outputStream.write(bytes);
+            }
             writeLine("");
             writeRecordBoundary();
             if (logger != null) {
@@ -2146,8 +2446,13 @@ public class GraphRequest {
             }
             writeContentDisposition(key, key, mimeType);
 
-            int totalBytes = 0;
-            if (outputStream instanceof ProgressNoopOutputStream) {
+            long totalBytes = 0;
+            if (outputStream instanceof ProgressBufferingOutputStream) {
+                // The content is read once, when the buffered body is written to the connection
+                totalBytes = Utility.getContentSize(contentUri);
+                ((ProgressBufferingOutputStream) outputStream)
+                        .writeContentUriReference(contentUri, totalBytes);
+            } else if (outputStream instanceof ProgressNoopOutputStream) {
                 // If we are only counting bytes then skip reading the file
                 long contentSize = Utility.getContentSize(contentUri);
 
@@ -2179,9 +2484,13 @@ public class GraphRequest {
             }
             writeContentDisposition(key, key, mimeType);
 
-            int totalBytes = 0;
+            long totalBytes = 0;
 
-            if (outputStream instanceof ProgressNoopOutputStream) {
+            if (outputStream instanceof ProgressBufferingOutputStream) {
+                // The file is read once, when the buffered body is written to the connection
+                totalBytes = descriptor.getStatSize();
+                ((ProgressBufferingOutputStream) outputStream).writeFileReference(descriptor);
+            } else if (outputStream instanceof ProgressNoopOutputStream) {
                 // If we are only counting bytes then skip reading the file
                 ((ProgressNoopOutputStream) outputStream).addProgress(descriptor.getStatSize());
             } else {
@@ -38,6 +38,8 @@ public class GraphRequestBatch extends AbstractList<GraphRequest> {
     private final String id = Integer.valueOf(idGenerator.incrementAndGet()).toString();
     private List<Callback> callbacks = new ArrayList<Callback>();
     private String batchApplicationId;
+    private boolean streamingResponsesEnabled = false;
+    private boolean backgroundPriority = false;
 
     /**
      * Constructor. Creates an empty batch.
@@ -71,6 +73,8 @@ public class GraphRequestBatch extends AbstractList<GraphRequest> {
         this.callbackHandler = requests.callbackHandler;
         this.timeoutInMilliseconds = requests.timeoutInMilliseconds;
         this.callbacks = new ArrayList<Callback>(requests.callbacks);
+        this.streamingResponsesEnabled = requests.streamingResponsesEnabled;
+        this.backgroundPriority = requests.backgroundPriority;
     }
 
     /**
@@ -92,6 +96,46 @@ public class GraphRequestBatch extends AbstractList<GraphRequest> {
         this.timeoutInMilliseconds = timeoutInMilliseconds;
     }
 
+    /**
+     * Returns whether responses to this batch are parsed incrementally from the connection.
+     * @return true if streaming response parsing is enabled
+     */
+    public boolean isStreamingResponsesEnabled() {
+        return streamingResponsesEnabled;
+    }
+
+    /**
+     * Sets whether responses to this batch are parsed incrementally as they are read from the
+     * connection, instead of reading the whole response body first. When enabled, each request's
+     * callback may be called as soon as its own response has been parsed, before the rest of the
+     * batch has arrived, and {@link FacebookRequestError#getBatchRequestResult()} only contains
+     * the failing request's own entry. Batch-level callbacks are still called last.
+     * @param streamingResponsesEnabled true to parse responses incrementally
+     */
+    public void setStreamingResponsesEnabled(boolean streamingResponsesEnabled) {
+        this.streamingResponsesEnabled = streamingResponsesEnabled;
+    }
+
+    /**
+     * Returns whether this batch is queued behind background work when executed.
+     * @return true if the batch runs at background priority
+     */
+    public boolean isBackgroundPriority() {
+        return backgroundPriority;
+    }
+
+    /**
+     * Sets whether this batch runs with background work such as analytics rather than with
+     * requests the user is waiting on. The two kinds of request are queued separately and neither
+     * can use up the other's share of threads. A background batch executed with
+     * {@link #executeAndWait()} also waits for its turn, and runs its callbacks on the SDK thread
+     * that sends it rather than on the calling thread.
+     * @param backgroundPriority true for background priority; false (the default) otherwise
+     */
+    public void setBackgroundPriority(boolean backgroundPriority) {
+        this.backgroundPriority = backgroundPriority;
+    }
+
     /**
      * Adds a batch-level callback which will be called when the entire batch has finished
      * executing.
@@ -185,7 +229,9 @@ public class GraphRequestBatch extends AbstractList<GraphRequest> {
     }
 
     /**
-     * Executes this batch on the current thread and returns the responses.
+     * Executes this batch and returns the responses. The batch is sent on the current thread,
+     * unless it runs at background priority, in which case it is sent and its callbacks are run on
+     * an SDK thread.
      * <p/>
      * This should only be used if you have transitioned off the UI thread.
      *
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Lets concurrent executions of the same Graph GET share a single network call. The first
+ * execution of a request becomes the leader and goes to the network; identical requests executed
+ * while it is in flight wait for its response, which each of them then receives as its own
+ * {@link GraphResponse}. Requests are identical if they resolve to the same URL, i.e. the same
+ * path, version, parameters and access token.
+ *
+ * The leader publishes its response before running its own callbacks, and every waiting execution
+ * gets its own copy of the response's JSON. Sharing is off unless the app turns it on with
+ * {@link FacebookSdk#setGraphRequestDeduplicationEnabled(boolean)}.
+ */
+final class GraphRequestDeduplicator {
+    private static final Map<String, Call> inFlightCalls = new HashMap<>();
+
+    private GraphRequestDeduplicator() {
+    }
+
+    /**
+     * Returns the key that identical executions of the batch share, or null if the batch can't
+     * share a network call: sharing is disabled, the batch has more than one request, or its
+     * request isn't a plain GET.
+     */
+    @Nullable
+    static String getKey(GraphRequestBatch requests) {
+        if (!FacebookSdk.isGraphRequestDeduplicationEnabled() || requests.size() != 1) {
+            return null;
+        }
+        GraphRequest request = requests.get(0);
+        if (request.getHttpMethod() != HttpMethod.GET) {
+            return null;
+        }
+        try {
+            return request.peekUrlForSingleRequest();
+        } catch (RuntimeException e) {
+            // Parameters that can't be sent in a GET; let the request fail on its own.
+            return null;
+        }
+    }
+
+    /**
+     * Joins the call in flight for the key, or starts one with the current thread as its leader.
+     * Returns null if the current thread already leads that call, e.g. when a callback run by the
+     * leader executes the same request again; such an execution can't wait for itself.
+     */
+    @Nullable
+    static Call join(String key) {
+        synchronized (inFlightCalls) {
+            Call call = inFlightCalls.get(key);
+            if (call == null) {
+                call = new Call(key, Thread.currentThread());
+                inFlightCalls.put(key, call);
+            } else if (call.isLeader()) {
+                return null;
+            }
+            return call;
+        }
+    }
+
+    static final class Call {
+        private final String key;
+        private final Thread leader;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile GraphResponse response;
+        // The response's JSON, serialized before the leader's callbacks can modify it. Each
+        // waiting execution parses its own copy.
+        private volatile String jsonObject;
+        private volatile String jsonArray;
+
+        private Call(String key, Thread leader) {
+            this.key = key;
+            this.leader = leader;
+        }
+
+        boolean isLeader() {
+            return leader == Thread.currentThread();
+        }
+
+        /**
+         * Publishes the leader's response, or null if it didn't get one, to the waiting
+         * executions. Later executions of the same request go to the network again. Only the
+         * first call has an effect.
+         */
+        void complete(@Nullable GraphResponse response) {
+            if (done.getCount() == 0) {
+                return;
+            }
+            synchronized (inFlightCalls) {
+                if (inFlightCalls.get(key) == this) {
+                    inFlightCalls.remove(key);
+                }
+            }
+            if (response != null) {
+                if (response.getJSONObject() != null) {
+                    jsonObject = response.getJSONObject().toString();
+                }
+                if (response.getJSONArray() != null) {
+                    jsonArray = response.getJSONArray().toString();
+                }
+            }
+            this.response = response;
+            done.countDown();
+        }
+
+        /**
+         * Waits for the leader and returns a copy of its response for the request, or null if
+         * the leader failed without a response or its JSON can't be copied.
+         */
+        @Nullable
+        GraphResponse await(GraphRequest request) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            GraphResponse shared = response;
+            if (shared == null) {
+                return null;
+            }
+            try {
+                return new GraphResponse(
+                        request,
+                        shared.getConnection(),
+                        shared.getRawResponse(),
+                        jsonObject != null ? new JSONObject(jsonObject) : null,
+                        jsonArray != null ? new JSONArray(jsonArray) : null,
+                        shared.getError());
+            } catch (JSONException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import com.facebook.internal.WorkQueue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs asynchronous Graph requests, and synchronous ones at background priority, on threads of
+ * their own rather than on the executor shared with the app. Requests are queued in one of two
+ * lanes, each with its own concurrency limit, so a burst of background traffic such as app events
+ * or settings fetches can't hold up requests the user is waiting on, nor the other way around.
+ */
+final class GraphRequestExecutor {
+    static final int MAX_INTERACTIVE_CONCURRENT = 4;
+    static final int MAX_BACKGROUND_CONCURRENT = 2;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static GraphRequestExecutor instance;
+
+    private static final ThreadLocal<Boolean> isInLane = new ThreadLocal<>();
+
+    private final WorkQueue interactiveLane;
+    private final WorkQueue backgroundLane;
+    private final Executor interactiveExecutor;
+    private final Executor backgroundExecutor;
+
+    static synchronized GraphRequestExecutor getInstance() {
+        if (instance == null) {
+            instance = new GraphRequestExecutor(createThreadPool());
+        }
+        return instance;
+    }
+
+    GraphRequestExecutor(Executor executor) {
+        interactiveLane = new WorkQueue(MAX_INTERACTIVE_CONCURRENT, executor);
+        backgroundLane = new WorkQueue(MAX_BACKGROUND_CONCURRENT, executor);
+        interactiveExecutor = new LaneExecutor(interactiveLane);
+        backgroundExecutor = new LaneExecutor(backgroundLane);
+    }
+
+    /**
+     * Runs the task in one of the lanes and blocks until it has finished, rethrowing anything it
+     * throws. Tasks submitted from a task that is already running in a lane run right away, so
+     * a full lane never waits on itself.
+     */
+    <T> T executeAndWait(Callable<T> task, boolean background) {
+        if (Boolean.TRUE.equals(isInLane.get())) {
+            return call(task);
+        }
+
+        final WaitingTask<T> waitingTask = new WaitingTask<>(task);
+        getExecutor(background).execute(waitingTask);
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                waitingTask.done.await();
+                break;
+            } catch (InterruptedException e) {
+                // The task may already be running; keep waiting and restore the interrupt after.
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (waitingTask.error != null) {
+            if (waitingTask.error instanceof Error) {
+                throw (Error) waitingTask.error;
+            }
+            throw (RuntimeException) waitingTask.error;
+        }
+        return waitingTask.result;
+    }
+
+    /**
+     * Returns an Executor that queues its tasks in one of the lanes, to run AsyncTasks on.
+     * Cancelling such an AsyncTask before it starts makes it a no-op when its turn comes.
+     */
+    Executor getExecutor(boolean background) {
+        return background ? backgroundExecutor : interactiveExecutor;
+    }
+
+    private static Executor createThreadPool() {
+        int threads = MAX_INTERACTIVE_CONCURRENT + MAX_BACKGROUND_CONCURRENT;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        return new Thread(
+                                runnable, "FacebookSdk-GraphRequest-" + count.incrementAndGet());
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FacebookException(e);
+        }
+    }
+
+    private static class LaneExecutor implements Executor {
+        private final WorkQueue lane;
+
+        LaneExecutor(WorkQueue lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void execute(final Runnable task) {
+            lane.addActiveWorkItem(new Runnable() {
+                @Override
+                public void run() {
+                    isInLane.set(true);
+                    try {
+                        task.run();
+                    } finally {
+                        isInLane.remove();
+                    }
+                }
+            }, false);
+        }
+    }
+
+    private static class WaitingTask<T> implements Runnable {
+        final CountDownLatch done = new CountDownLatch(1);
+        private final Callable<T> task;
+        volatile T result;
+        volatile Throwable error;
+
+        WaitingTask(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = call(task);
+            } catch (RuntimeException | Error e) {
+                error = e;
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -248,10 +248,17 @@ public class GraphResponse {
                 .toString();
     }
 
-    @SuppressWarnings("resource")
     static List<GraphResponse> fromHttpConnection(
             HttpURLConnection connection,
             GraphRequestBatch requests) {
+        return fromHttpConnection(connection, requests, null);
+    }
+
+    @SuppressWarnings("resource")
+    static List<GraphResponse> fromHttpConnection(
+            HttpURLConnection connection,
+            GraphRequestBatch requests,
+            GraphResponseStreamParser.Listener listener) {
         InputStream stream = null;
 
         try {
@@ -267,6 +274,9 @@ public class GraphResponse {
                 stream = connection.getInputStream();
             }
 
+            if (shouldStreamResponses(requests)) {
+                return GraphResponseStreamParser.parse(stream, connection, requests, listener);
+            }
             return createResponsesFromStream(stream, connection, requests);
         } catch (FacebookException facebookException) {
             Logger.log(
@@ -291,6 +301,14 @@ public class GraphResponse {
         }
     }
 
+    private static boolean shouldStreamResponses(GraphRequestBatch requests) {
+        // A single response has to be read whole anyway, and raw response logging needs the
+        // complete body as a String.
+        return requests.isStreamingResponsesEnabled()
+                && requests.size() > 1
+                && !FacebookSdk.isLoggingBehaviorEnabled(LoggingBehavior.INCLUDE_RAW_RESPONSES);
+    }
+
     static List<GraphResponse> createResponsesFromStream(
             InputStream stream,
             HttpURLConnection connection,
@@ -328,7 +346,7 @@ public class GraphResponse {
         return responses;
     }
 
-    private static List<GraphResponse> createResponsesFromObject(
+    static List<GraphResponse> createResponsesFromObject(
             HttpURLConnection connection,
             List<GraphRequest> requests,
             Object object
@@ -403,7 +421,7 @@ public class GraphResponse {
         return responses;
     }
 
-    private static GraphResponse createResponseFromObject(
+    static GraphResponse createResponseFromObject(
             GraphRequest request,
             HttpURLConnection connection,
             Object object,
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.facebook.internal.FileLruCache;
+import com.facebook.internal.Logger;
+import com.facebook.internal.Utility;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Caches the responses to GET requests that opted in with
+ * {@link GraphRequest#setResponseCacheEnabled(boolean)}, in memory and on disk. Entries are keyed
+ * by a hash of the request URL, which covers the path, version, parameters and access token.
+ *
+ * Responses are cached following the server's headers: Cache-Control max-age sets how long an
+ * entry is fresh and no-store keeps it out of the cache, while an ETag lets a stale entry be
+ * revalidated with If-None-Match. Responses that carry neither a max-age nor an ETag aren't
+ * cached.
+ *
+ * The cache is cleared when the current access token is replaced or cleared, and by
+ * {@link GraphRequest#clearResponseCache()}.
+ */
+final class GraphResponseCache {
+    static final String TAG = GraphResponseCache.class.getSimpleName();
+
+    private static final int MAX_MEMORY_CHARS = 256 * 1024;
+    private static final String CACHE_CONTROL_HEADER = "Cache-Control";
+    private static final String ETAG_HEADER = "ETag";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final String NO_STORE = "no-store";
+    private static final String NO_CACHE = "no-cache";
+    private static final String MAX_AGE_PREFIX = "max-age=";
+    private static final String BODY_KEY = "body";
+    private static final String ETAG_KEY = "etag";
+    private static final String EXPIRES_KEY = "expires";
+    private static final String STORED_KEY = "stored";
+
+    private static GraphResponseCache instance;
+
+    private final LruCache<String, Entry> memoryCache =
+            new LruCache<String, Entry>(MAX_MEMORY_CHARS) {
+                @Override
+                protected int sizeOf(String key, Entry entry) {
+                    return entry.body.length();
+                }
+            };
+    private FileLruCache diskCache;
+    // Bumped by clear(), so responses to requests sent before it aren't stored after it.
+    private int generation;
+    // The disk cache is cleared in the background, or not at all if it wasn't opened, so
+    // entries stored before the last clear() are ignored.
+    private volatile long clearedAtMillis;
+
+    static synchronized GraphResponseCache getInstance() {
+        if (instance == null) {
+            instance = new GraphResponseCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cache key for the batch, or null if it isn't a single GET that opted in.
+     */
+    @Nullable
+    static String getKey(GraphRequestBatch requests) {
+        if (requests.size() != 1) {
+            return null;
+        }
+        GraphRequest request = requests.get(0);
+        if (!request.isResponseCacheEnabled() || request.getHttpMethod() != HttpMethod.GET) {
+            return null;
+        }
+        try {
+            // Hashed, so that access tokens in the URL aren't written to disk.
+            return Utility.sha256hash(request.peekUrlForSingleRequest());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    Entry get(String key) {
+        Entry entry = memoryCache.get(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        InputStream stream = null;
+        try {
+            stream = getDiskCache().get(key);
+            if (stream == null) {
+                return null;
+            }
+            JSONObject json = new JSONObject(Utility.readStreamToString(stream));
+            if (clearedAtMillis > 0 && json.optLong(STORED_KEY) <= clearedAtMillis) {
+                return null;
+            }
+            entry = new Entry(
+                    json.getString(BODY_KEY),
+                    json.optString(ETAG_KEY, null),
+                    json.getLong(EXPIRES_KEY));
+            memoryCache.put(key, entry);
+            return entry;
+        } catch (IOException | JSONException e) {
+            Logger.log(LoggingBehavior.CACHE, Log.WARN, TAG, e.toString());
+            return null;
+        } finally {
+            Utility.closeQuietly(stream);
+        }
+    }
+
+    void put(String key, Entry entry) {
+        put(key, entry, getGeneration());
+    }
+
+    /**
+     * Stores the entry, unless the cache was cleared since the given generation was read.
+     */
+    void put(String key, Entry entry, int generation) {
+        FileLruCache diskCache;
+        long storedAtMillis;
+        synchronized (this) {
+            if (generation != this.generation) {
+                return;
+            }
+            memoryCache.put(key, entry);
+            diskCache = getDiskCache();
+            // Read under the lock, so a clear() racing with the write below still hides it.
+            storedAtMillis = System.currentTimeMillis();
+        }
+
+        OutputStream stream = null;
+        try {
+            JSONObject json = new JSONObject();
+            json.put(BODY_KEY, entry.body);
+            json.put(ETAG_KEY, entry.etag);
+            json.put(EXPIRES_KEY, entry.expiresAtMillis);
+            json.put(STORED_KEY, storedAtMillis);
+            stream = diskCache.openPutStream(key);
+            stream.write(json.toString().getBytes("UTF-8"));
+        } catch (IOException | JSONException e) {
+            Logger.log(LoggingBehavior.CACHE, Log.WARN, TAG, e.toString());
+        } finally {
+            Utility.closeQuietly(stream);
+        }
+    }
+
+    synchronized int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Removes every entry, in memory and on disk. Cheap if the cache hasn't been used: entries
+     * left on disk by an earlier process are ignored rather than deleted, and the files are
+     * deleted on the SDK executor.
+     */
+    void clear() {
+        final FileLruCache diskCache;
+        synchronized (this) {
+            generation++;
+            clearedAtMillis = System.currentTimeMillis();
+            memoryCache.evictAll();
+            diskCache = this.diskCache;
+        }
+        if (diskCache != null) {
+            FacebookSdk.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    diskCache.clearCache();
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds the headers that revalidate the cached entry, if it can be revalidated.
+     */
+    static void addConditionalHeaders(HttpURLConnection connection, @Nullable Entry entry) {
+        if (entry != null && entry.etag != null) {
+            connection.setRequestProperty(IF_NONE_MATCH_HEADER, entry.etag);
+        }
+    }
+
+    static String getCacheControl(HttpURLConnection connection) {
+        return connection.getHeaderField(CACHE_CONTROL_HEADER);
+    }
+
+    static String getETag(HttpURLConnection connection) {
+        return connection.getHeaderField(ETAG_HEADER);
+    }
+
+    /**
+     * Returns the entry to cache for a response with the given headers, or null if the headers
+     * don't allow caching it.
+     */
+    @Nullable
+    static Entry createEntry(
+            @Nullable String cacheControl,
+            @Nullable String etag,
+            String body,
+            long now) {
+        long maxAgeSeconds = 0;
+        boolean hasMaxAge = false;
+
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                directive = directive.trim().toLowerCase(Locale.US);
+                if (directive.equals(NO_STORE)) {
+                    return null;
+                } else if (directive.equals(NO_CACHE)) {
+                    maxAgeSeconds = 0;
+                    hasMaxAge = false;
+                    break;
+                } else if (directive.startsWith(MAX_AGE_PREFIX)) {
+                    try {
+                        maxAgeSeconds = Long.parseLong(
+                                directive.substring(MAX_AGE_PREFIX.length()));
+                        hasMaxAge = maxAgeSeconds > 0;
+                    } catch (NumberFormatException e) {
+                        // Treat as stale.
+                    }
+                }
+            }
+        }
+
+        if (!hasMaxAge && etag == null) {
+            return null;
+        }
+        return new Entry(body, etag, now + maxAgeSeconds * 1000);
+    }
+
+    /**
+     * Recreates the responses to the requests from a cached body, or returns null if the body
+     * can't be parsed.
+     */
+    @Nullable
+    static List<GraphResponse> createResponses(Entry entry, GraphRequestBatch requests) {
+        try {
+            return GraphResponse.createResponsesFromString(entry.body, null, requests);
+        } catch (FacebookException | JSONException | IOException e) {
+            Logger.log(LoggingBehavior.CACHE, Log.WARN, TAG, e.toString());
+            return null;
+        }
+    }
+
+    private synchronized FileLruCache getDiskCache() {
+        if (diskCache == null) {
+            diskCache = new FileLruCache(TAG, new FileLruCache.Limits());
+        }
+        return diskCache;
+    }
+
+    static final class Entry {
+        final String body;
+        @Nullable final String etag;
+        final long expiresAtMillis;
+
+        Entry(String body, @Nullable String etag, long expiresAtMillis) {
+            this.body = body;
+            this.etag = etag;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isFresh(long now) {
+            return now < expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.facebook.internal.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses a batch response directly from the connection's stream, one array element at a time.
+ * Each element is turned into a {@link GraphResponse} and handed to the listener as soon as it
+ * has been read, so the complete body is never held as a String or a single JSONArray.
+ */
+final class GraphResponseStreamParser {
+    private static final String RESPONSE_LOG_TAG = "Response";
+
+    interface Listener {
+        void onResponse(int index, GraphResponse response);
+    }
+
+    private GraphResponseStreamParser() {
+    }
+
+    static List<GraphResponse> parse(
+            InputStream stream,
+            HttpURLConnection connection,
+            GraphRequestBatch requests,
+            Listener listener) throws IOException, JSONException {
+        int numRequests = requests.size();
+        List<GraphResponse> responses = new ArrayList<GraphResponse>(numRequests);
+        JsonReader reader = new JsonReader(new InputStreamReader(stream, "UTF-8"));
+        reader.setLenient(true);
+
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            // Not a batch response (e.g. an error for the whole request), which is small enough
+            // to be handled by the regular parser.
+            Object resultObject = readValue(reader);
+            return GraphResponse.createResponsesFromObject(connection, requests, resultObject);
+        }
+
+        int numEntries = 0;
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (numEntries >= numRequests) {
+                    reader.skipValue();
+                    numEntries++;
+                    continue;
+                }
+
+                GraphRequest request = requests.get(numEntries);
+                GraphResponse response;
+                try {
+                    Object entry = readValue(reader);
+                    // The full batch array is never materialized, so errors only carry their own
+                    // entry as the batch result.
+                    response = GraphResponse.createResponseFromObject(
+                            request,
+                            connection,
+                            entry,
+                            entry);
+                } catch (JSONException e) {
+                    response = new GraphResponse(
+                            request,
+                            connection,
+                            new FacebookRequestError(connection, e));
+                } catch (FacebookException e) {
+                    response = new GraphResponse(
+                            request,
+                            connection,
+                            new FacebookRequestError(connection, e));
+                }
+                deliver(responses, numEntries, response, listener);
+                numEntries++;
+            }
+            reader.endArray();
+        } catch (IOException e) {
+            failRemaining(responses, connection, requests, new FacebookException(e), listener);
+        } catch (IllegalStateException e) {
+            failRemaining(responses, connection, requests, new FacebookException(e), listener);
+        }
+
+        if (numEntries != numRequests) {
+            failRemaining(
+                    responses,
+                    connection,
+                    requests,
+                    new FacebookException("Unexpected number of results"),
+                    listener);
+        }
+
+        Logger.log(
+                LoggingBehavior.REQUESTS,
+                RESPONSE_LOG_TAG,
+                "Response (streamed)\n  Id: %s\n  Entries: %d\n  Responses:\n%s\n",
+                requests.getId(),
+                numEntries,
+                responses);
+
+        return responses;
+    }
+
+    private static void deliver(
+            List<GraphResponse> responses,
+            int index,
+            GraphResponse response,
+            Listener listener) {
+        responses.add(response);
+        if (listener != null) {
+            listener.onResponse(index, response);
+        }
+    }
+
+    private static void failRemaining(
+            List<GraphResponse> responses,
+            HttpURLConnection connection,
+            GraphRequestBatch requests,
+            FacebookException error,
+            Listener listener) {
+        for (int i = responses.size(); i < requests.size(); ++i) {
+            deliver(
+                    responses,
+                    i,
+                    new GraphResponse(
+                            requests.get(i),
+                            connection,
+                            new FacebookRequestError(connection, error)),
+                    listener);
+        }
+    }
+
+    /**
+     * Reads the next value into the same object model JSONTokener produces.
+     */
+    static Object readValue(JsonReader reader) throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                JSONObject jsonObject = new JSONObject();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    jsonObject.put(name, readValue(reader));
+                }
+                reader.endObject();
+                return jsonObject;
+            case BEGIN_ARRAY:
+                JSONArray jsonArray = new JSONArray();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    jsonArray.put(readValue(reader));
+                }
+                reader.endArray();
+                return jsonArray;
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return parseNumber(reader.nextString());
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            default:
+                throw new JSONException("Unexpected token " + reader.peek());
+        }
+    }
+
+    private static Object parseNumber(String literal) {
+        if (literal.indexOf('.') == -1
+                && literal.indexOf('e') == -1
+                && literal.indexOf('E') == -1) {
+            try {
+                long longValue = Long.parseLong(literal);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            } catch (NumberFormatException e) {
+                // Fall through to double
+            }
+        }
+        return Double.valueOf(literal);
+    }
+}
@@ -25,6 +25,7 @@ import android.content.Intent;
 import android.support.annotation.Nullable;
 import android.support.v4.content.LocalBroadcastManager;
 
+import com.facebook.internal.StartupTrace;
 import com.facebook.internal.Utility;
 import com.facebook.internal.Validate;
 
@@ -72,14 +73,19 @@ final public class ProfileManager {
     }
 
     boolean loadCurrentProfile() {
-        Profile profile = profileCache.load();
+        long startTimeNanos = StartupTrace.begin();
+        try {
+            Profile profile = profileCache.load();
 
-        if (profile != null) {
-            setCurrentProfile(profile, false);
-            return true;
-        }
+            if (profile != null) {
+                setCurrentProfile(profile, false);
+                return true;
+            }
 
-        return false;
+            return false;
+        } finally {
+            StartupTrace.end(StartupTraceListener.SPAN_LOAD_PROFILE, startTimeNanos);
+        }
     }
 
     void setCurrentProfile(@Nullable Profile currentProfile) {
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.ParcelFileDescriptor;
+
+import com.facebook.internal.Utility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records a serialized request body once so that its size is known before it is sent. Generated
+ * parts of the body are kept in memory, while file and content attachments are only recorded by
+ * reference together with their size from metadata, and are streamed when the body is replayed
+ * into the connection with {@link #writeTo(OutputStream)}.
+ */
+class ProgressBufferingOutputStream extends ProgressNoopOutputStream {
+    private final List<Part> parts = new ArrayList<Part>();
+
+    private GraphRequest currentRequest;
+    private ByteArrayOutputStream currentBuffer;
+
+    ProgressBufferingOutputStream(Handler callbackHandler) {
+        super(callbackHandler);
+    }
+
+    @Override
+    public void setCurrentRequest(GraphRequest currentRequest) {
+        super.setCurrentRequest(currentRequest);
+        if (this.currentRequest != currentRequest) {
+            this.currentRequest = currentRequest;
+            this.currentBuffer = null;
+        }
+    }
+
+    @Override
+    public void write(byte[] buffer) {
+        write(buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        getCurrentBuffer().write(buffer, offset, length);
+        addProgress(length);
+    }
+
+    @Override
+    public void write(int oneByte) {
+        getCurrentBuffer().write(oneByte);
+        addProgress(1);
+    }
+
+    /**
+     * Records caller-owned bytes without copying them.
+     */
+    void writeBytesReference(byte[] bytes) {
+        addPart(new Part(currentRequest, null, bytes, null));
+        addProgress(bytes.length);
+    }
+
+    void writeContentUriReference(Uri contentUri, long size) {
+        addPart(new Part(currentRequest, null, null, contentUri));
+        addProgress(size);
+    }
+
+    void writeFileReference(ParcelFileDescriptor descriptor) {
+        addPart(new Part(currentRequest, null, null, descriptor));
+        addProgress(descriptor.getStatSize());
+    }
+
+    /**
+     * Writes the recorded body, reading attachments for the first and only time.
+     */
+    void writeTo(OutputStream outputStream) throws IOException {
+        for (Part part : parts) {
+            if (outputStream instanceof RequestOutputStream) {
+                ((RequestOutputStream) outputStream).setCurrentRequest(part.request);
+            }
+
+            if (part.buffer != null) {
+                part.buffer.writeTo(outputStream);
+            } else if (part.bytes != null) {
+                outputStream.write(part.bytes);
+            } else if (part.attachment instanceof Uri) {
+                InputStream inputStream = FacebookSdk
+                        .getApplicationContext()
+                        .getContentResolver()
+                        .openInputStream((Uri) part.attachment);
+                Utility.copyAndCloseInputStream(inputStream, outputStream);
+            } else if (part.attachment instanceof ParcelFileDescriptor) {
+                ParcelFileDescriptor.AutoCloseInputStream inputStream =
+                        new ParcelFileDescriptor.AutoCloseInputStream(
+                                (ParcelFileDescriptor) part.attachment);
+                Utility.copyAndCloseInputStream(inputStream, outputStream);
+            }
+        }
+        parts.clear();
+    }
+
+    private ByteArrayOutputStream getCurrentBuffer() {
+        if (currentBuffer == null) {
+            currentBuffer = new ByteArrayOutputStream();
+            parts.add(new Part(currentRequest, currentBuffer, null, null));
+        }
+        return currentBuffer;
+    }
+
+    private void addPart(Part part) {
+        parts.add(part);
+        // Anything written after this part must come after it as well.
+        currentBuffer = null;
+    }
+
+    private static class Part {
+        private final GraphRequest request;
+        private final ByteArrayOutputStream buffer;
+        private final byte[] bytes;
+        private final Object attachment;
+
+        private Part(
+                GraphRequest request,
+                ByteArrayOutputStream buffer,
+                byte[] bytes,
+                Object attachment) {
+            this.request = request;
+            this.buffer = buffer;
+            this.bytes = bytes;
+            this.attachment = attachment;
+        }
+    }
+}
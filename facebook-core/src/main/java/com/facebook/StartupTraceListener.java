@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+/**
+ * Receives a timed span for each step of SDK startup, e.g. to find where startup time goes.
+ * Register one with {@link FacebookSdk#setStartupTraceListener(StartupTraceListener)}. The spans
+ * of steps that ran before a listener was registered are delivered when it is registered.
+ *
+ * Spans are delivered on the thread that ran the step, which may be the main thread, so
+ * implementations should return quickly.
+ */
+public interface StartupTraceListener {
+    /**
+     * {@link FacebookSdk#sdkInitialize}, up to the point where the remaining work runs on
+     * background threads.
+     */
+    String SPAN_SDK_INITIALIZE = "sdk_initialize";
+
+    /**
+     * The content provider that initializes the SDK on application start.
+     */
+    String SPAN_INIT_PROVIDER_CREATE = "init_provider_create";
+
+    /**
+     * Loading the current access token from its cache.
+     */
+    String SPAN_LOAD_ACCESS_TOKEN = "load_access_token";
+
+    /**
+     * Loading the current profile from its cache.
+     */
+    String SPAN_LOAD_PROFILE = "load_profile";
+
+    /**
+     * Fetching the app settings from the network.
+     */
+    String SPAN_APP_SETTINGS_FETCH = "app_settings_fetch";
+
+    /**
+     * Parsing the app settings, from the cache or from the network.
+     */
+    String SPAN_APP_SETTINGS_PARSE = "app_settings_parse";
+
+    /**
+     * Initializing app events.
+     */
+    String SPAN_APP_EVENTS_INITIALIZE = "app_events_initialize";
+
+    /**
+     * Registering the activity lifecycle callbacks that log app activation.
+     */
+    String SPAN_ACTIVITY_TRACKING_START = "activity_tracking_start";
+
+    /**
+     * Prefix of the spans of the startup stages, followed by the stage name, e.g.
+     * startup_stage_access_token for {@link FacebookSdk#STARTUP_STAGE_ACCESS_TOKEN}.
+     */
+    String SPAN_STARTUP_STAGE_PREFIX = "startup_stage_";
+
+    /**
+     * Called when a step of SDK startup has finished.
+     *
+     * @param name           the step, one of the SPAN_ constants
+     * @param startTimeNanos when the step started, as returned by {@link System#nanoTime()}
+     * @param durationNanos  how long the step took
+     */
+    void onSpan(String name, long startTimeNanos, long durationNanos);
+}
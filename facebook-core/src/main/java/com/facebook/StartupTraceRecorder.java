@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link StartupTraceListener} that keeps the spans in memory, for tests and benchmarks.
+ */
+public class StartupTraceRecorder implements StartupTraceListener {
+    private final List<Span> spans = new ArrayList<>();
+
+    @Override
+    public synchronized void onSpan(String name, long startTimeNanos, long durationNanos) {
+        spans.add(new Span(name, startTimeNanos, durationNanos));
+    }
+
+    /**
+     * @return the spans recorded so far, in the order they finished
+     */
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * @return the spans recorded so far with the given name
+     */
+    public synchronized List<Span> getSpans(String name) {
+        List<Span> namedSpans = new ArrayList<>();
+        for (Span span : spans) {
+            if (span.getName().equals(name)) {
+                namedSpans.add(span);
+            }
+        }
+        return namedSpans;
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+
+    /**
+     * @return one line per span with its name and duration in milliseconds
+     */
+    public synchronized String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Span span : spans) {
+            builder.append(String.format(
+                    Locale.US,
+                    "%s: %.3f ms%n",
+                    span.getName(),
+                    span.getDurationNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        return builder.toString();
+    }
+
+    public static class Span {
+        private final String name;
+        private final long startTimeNanos;
+        private final long durationNanos;
+
+        Span(String name, long startTimeNanos, long durationNanos) {
+            this.name = name;
+            this.startTimeNanos = startTimeNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartTimeNanos() {
+            return startTimeNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+    }
+}
@@ -52,11 +52,14 @@ class AppEvent implements Serializable {
 
     private static final HashSet<String> validatedIdentifiers = new HashSet<String>();
 
-    private final JSONObject jsonObject;
     private final boolean isImplicit;
     private final boolean inBackground;
     private final String name;
-    private final String checksum;
+    // Built from pendingEvent the first time the JSON or checksum is needed, which is normally on
+    // the flush thread rather than the thread that logged the event. Guarded by this.
+    private JSONObject jsonObject;
+    private String checksum;
+    private transient PendingEvent pendingEvent;
     private final Map<String, String> restrictedParams = new HashMap<>();
 
     public AppEvent(
@@ -72,14 +75,20 @@ class AppEvent implements Serializable {
         inBackground = isInBackground;
         name = eventName;
 
-        jsonObject = getJSONObjectForAppEvent(
+        // Everything that can reject the event is still checked here, so that callers see the
+        // same errors as before. Only the encoding is deferred.
+        validateIdentifier(eventName);
+        if (valueToSum != null && (valueToSum.isNaN() || valueToSum.isInfinite())) {
+            throw new JSONException("Forbidden numeric value: " + valueToSum);
+        }
+
+        pendingEvent = new PendingEvent(
                 contextName,
                 eventName,
+                System.currentTimeMillis() / 1000,
                 valueToSum,
                 parameters,
                 currentSessionId);
-
-        checksum = calculateChecksum();
     }
 
     public String getName() {
@@ -98,15 +107,34 @@ class AppEvent implements Serializable {
         this.inBackground = inBackground;
     }
 
+    static AppEvent fromPersistedJSON(
+            String jsonString,
+            boolean isImplicit,
+            boolean inBackground,
+            String checksum) throws JSONException {
+        return new AppEvent(jsonString, isImplicit, inBackground, checksum);
+    }
+
     public boolean getIsImplicit() {
         return isImplicit;
     }
 
-    public JSONObject getJSONObject() {
+    public boolean getIsInBackground() {
+        return inBackground;
+    }
+
+    public synchronized String getChecksum() {
+        encodeIfNeeded();
+        return checksum;
+    }
+
+    public synchronized JSONObject getJSONObject() {
+        encodeIfNeeded();
         return jsonObject;
     }
 
-    public boolean isChecksumValid() {
+    public synchronized boolean isChecksumValid() {
+        encodeIfNeeded();
         if (this.checksum == null) {
             // for old events we don't have a checksum
             return true;
@@ -115,6 +143,21 @@ class AppEvent implements Serializable {
         return calculateChecksum().equals(checksum);
     }
 
+    private void encodeIfNeeded() {
+        if (pendingEvent == null) {
+            return;
+        }
+
+        try {
+            jsonObject = getJSONObjectForAppEvent(pendingEvent);
+        } catch (JSONException e) {
+            // Values were checked when the event was created, so this is not expected.
+            throw new FacebookException("JSON encoding for app event failed", e);
+        }
+        checksum = calculateChecksum();
+        pendingEvent = null;
+    }
+
     // throw exception if not valid.
     private static void validateIdentifier(String identifier) throws FacebookException {
 
@@ -162,28 +205,28 @@ class AppEvent implements Serializable {
     }
 
     private JSONObject getJSONObjectForAppEvent(
-            String contextName,
-            String eventName,
-            Double valueToSum,
-            Bundle parameters,
-            @Nullable final UUID currentSessionId
+            PendingEvent event
     ) throws JSONException {
-        validateIdentifier(eventName);
-
         JSONObject eventObject = new JSONObject();
 
-        eventObject.put(Constants.EVENT_NAME_EVENT_KEY, eventName);
-        eventObject.put(Constants.EVENT_NAME_MD5_EVENT_KEY, md5Checksum(eventName));
-        eventObject.put(Constants.LOG_TIME_APP_EVENT_KEY, System.currentTimeMillis() / 1000);
-        eventObject.put("_ui", contextName);
-        if (currentSessionId != null) {
-            eventObject.put("_session_id", currentSessionId);
+        eventObject.put(Constants.EVENT_NAME_EVENT_KEY, event.eventName);
+        eventObject.put(Constants.EVENT_NAME_MD5_EVENT_KEY, md5Checksum(event.eventName));
+        eventObject.put(Constants.LOG_TIME_APP_EVENT_KEY, event.logTime);
+        eventObject.put("_ui", event.contextName);
+        if (event.sessionId != null) {
+            eventObject.put("_session_id", event.sessionId);
         }
 
-        if (parameters != null) {
-            Map<String, String> processedParam = validateParameters(parameters);
-            for (String key : processedParam.keySet()) {
-                eventObject.put(key, processedParam.get(key));
+        if (event.parameterKeys != null) {
+            for (int i = 0; i < event.parameterKeys.length; i++) {
+                String key = event.parameterKeys[i];
+                String value = event.parameterValues[i];
+                String type = RestrictiveParameterManager.getMatchedRuleType(key, value);
+                if (type != null) {
+                    restrictedParams.put(key, type);
+                } else {
+                    eventObject.put(key, value);
+                }
             }
             if (restrictedParams.size() > 0) {
                 JSONObject restrictedJSON = new JSONObject();
@@ -195,8 +238,8 @@ class AppEvent implements Serializable {
             }
         }
 
-        if (valueToSum != null) {
-            eventObject.put(AppEventsConstants.EVENT_PARAM_VALUE_TO_SUM, valueToSum.doubleValue());
+        if (event.hasValueToSum) {
+            eventObject.put(AppEventsConstants.EVENT_PARAM_VALUE_TO_SUM, event.valueToSum);
         }
 
         if (inBackground) {
@@ -213,35 +256,63 @@ class AppEvent implements Serializable {
         return eventObject;
     }
 
-    private Map<String, String> validateParameters(
-            Bundle parameters) throws FacebookException {
-
-        Map<String, String> paramMap = new HashMap<>();
-        for (String key : parameters.keySet()) {
-
-            validateIdentifier(key);
-
-            Object value = parameters.get(key);
-            if (!(value instanceof String) && !(value instanceof Number)) {
-                throw new FacebookException(
-                        String.format(
-                                "Parameter value '%s' for key '%s' should be a string" +
-                                        " or a numeric type.",
-                                value,
-                                key)
-                );
+    /**
+     * The values of an event as they were logged, before they are encoded as JSON.
+     */
+    private static class PendingEvent {
+        final String contextName;
+        final String eventName;
+        final long logTime;
+        final boolean hasValueToSum;
+        final double valueToSum;
+        final UUID sessionId;
+        final String[] parameterKeys;
+        final String[] parameterValues;
+
+        PendingEvent(
+                String contextName,
+                String eventName,
+                long logTime,
+                Double valueToSum,
+                Bundle parameters,
+                UUID sessionId) throws FacebookException {
+            this.contextName = contextName;
+            this.eventName = eventName;
+            this.logTime = logTime;
+            this.hasValueToSum = valueToSum != null;
+            this.valueToSum = valueToSum != null ? valueToSum : 0;
+            this.sessionId = sessionId;
+
+            if (parameters == null) {
+                parameterKeys = null;
+                parameterValues = null;
+                return;
             }
 
-            String valStr = value.toString();
-            String type = RestrictiveParameterManager.getMatchedRuleType(key, valStr);
-            if (type != null) {
-                restrictedParams.put(key, type);
-            } else {
-                paramMap.put(key, valStr);
+            // Copy the values out since the caller may keep changing the bundle.
+            int count = parameters.size();
+            parameterKeys = new String[count];
+            parameterValues = new String[count];
+            int i = 0;
+            for (String key : parameters.keySet()) {
+                validateIdentifier(key);
+
+                Object value = parameters.get(key);
+                if (!(value instanceof String) && !(value instanceof Number)) {
+                    throw new FacebookException(
+                            String.format(
+                                    "Parameter value '%s' for key '%s' should be a string" +
+                                            " or a numeric type.",
+                                    value,
+                                    key)
+                    );
+                }
+
+                parameterKeys[i] = key;
+                parameterValues[i] = value.toString();
+                i++;
             }
         }
-
-        return paramMap;
     }
 
     // OLD VERSION DO NOT USE
@@ -285,12 +356,14 @@ class AppEvent implements Serializable {
         }
     }
 
-    private Object writeReplace() {
+    private synchronized Object writeReplace() {
+        encodeIfNeeded();
         return new SerializationProxyV2(jsonObject.toString(), isImplicit, inBackground, checksum);
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
+        encodeIfNeeded();
         return String.format(
                 "\"%s\", implicit: %b, json: %s",
                 jsonObject.optString("_eventName"),
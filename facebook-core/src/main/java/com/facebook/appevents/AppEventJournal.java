@@ -0,0 +1,412 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents;
+
+import android.util.Log;
+
+import com.facebook.internal.Utility;
+
+import org.json.JSONException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store for app events that could not be sent to the server.
+ *
+ * Events are written as length-prefixed records, each followed by a CRC32 of its payload, into
+ * a sequence of segment files. Persisting a batch only appends the new records to the newest
+ * segment; reading streams every record back in order and deletes each segment once it has been
+ * consumed. Segments that fail validation are dropped from the first bad record onwards.
+ *
+ * Compaction writes into a temporary file and renames it over the oldest segment before deleting
+ * the rest, so a crash part way through may replay events but never loses them. Temporary files
+ * left behind by a crash are deleted the first time the directory is listed.
+ *
+ * This class is not thread safe, callers are expected to serialize access to it.
+ */
+class AppEventJournal {
+    private static final String TAG = AppEventJournal.class.getName();
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int RECORD_VERSION = 1;
+    // Upper bound on a single record, anything larger is treated as corruption.
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+
+    static final long DEFAULT_MAX_SEGMENT_BYTES = 64 * 1024;
+    static final int DEFAULT_MAX_SEGMENT_COUNT = 16;
+
+    interface RecordHandler {
+        void onRecord(AccessTokenAppIdPair accessTokenAppIdPair, AppEvent appEvent);
+    }
+
+    private final File directory;
+    private final long maxSegmentBytes;
+    private final int maxSegmentCount;
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(512);
+    private final CRC32 crc = new CRC32();
+
+    private File activeSegment;
+    private long nextSequence = -1;
+    private boolean deletedTempFiles;
+
+    AppEventJournal(File directory) {
+        this(directory, DEFAULT_MAX_SEGMENT_BYTES, DEFAULT_MAX_SEGMENT_COUNT);
+    }
+
+    AppEventJournal(File directory, long maxSegmentBytes, int maxSegmentCount) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentCount = maxSegmentCount;
+    }
+
+    void append(AccessTokenAppIdPair accessTokenAppIdPair, List<AppEvent> appEvents)
+            throws IOException {
+        if (appEvents == null || appEvents.isEmpty()) {
+            return;
+        }
+
+        File segment = getSegmentForAppend();
+        DataOutputStream out = null;
+        boolean succeeded = false;
+        try {
+            out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(segment, true)));
+            for (AppEvent appEvent : appEvents) {
+                writeRecord(out, accessTokenAppIdPair, appEvent);
+            }
+            out.flush();
+            succeeded = true;
+        } finally {
+            Utility.closeQuietly(out);
+            if (!succeeded) {
+                // A partial record may have been written; never append behind it.
+                activeSegment = null;
+            }
+        }
+
+        if (listSegments().length > maxSegmentCount) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The events are already appended, compaction is retried on the next append.
+                Log.w(TAG, "Could not compact journal: ", e);
+            }
+        }
+    }
+
+    /**
+     * Streams every readable record to the handler, oldest first, deleting segments as they are
+     * consumed. Returns the number of records delivered.
+     */
+    int readAndClear(RecordHandler handler) {
+        int count = 0;
+        for (File segment : listSegments()) {
+            try {
+                count += readSegment(segment, handler);
+            } finally {
+                // Like the previous whole-file store, prefer losing events on error over
+                // sending them twice.
+                if (!segment.delete()) {
+                    Log.w(TAG, "Could not delete journal segment " + segment.getName());
+                }
+            }
+        }
+        activeSegment = null;
+        return count;
+    }
+
+    /**
+     * Rewrites all valid records into a single segment, dropping records that fail their
+     * checksum and anything written after them.
+     */
+    void compact() throws IOException {
+        File[] segments = listSegments();
+        if (segments.length <= 1) {
+            return;
+        }
+
+        // Name the compacted segment after the oldest one so it keeps its place in the order.
+        File compacted = new File(directory, segments[0].getName() + TEMP_SUFFIX);
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(compacted)));
+        boolean succeeded = false;
+        try {
+            final IOException[] writeError = new IOException[1];
+            for (File segment : segments) {
+                readSegment(segment, new RecordHandler() {
+                    @Override
+                    public void onRecord(AccessTokenAppIdPair pair, AppEvent appEvent) {
+                        if (writeError[0] != null) {
+                            return;
+                        }
+                        try {
+                            writeRecord(out, pair, appEvent);
+                        } catch (IOException e) {
+                            writeError[0] = e;
+                        }
+                    }
+                });
+            }
+            if (writeError[0] != null) {
+                throw writeError[0];
+            }
+            out.flush();
+            succeeded = true;
+        } finally {
+            Utility.closeQuietly(out);
+            if (!succeeded) {
+                compacted.delete();
+            }
+        }
+
+        // Install the compacted segment before dropping any source, the sources still hold
+        // every event if this fails.
+        if (!installSegment(compacted, segments[0])) {
+            compacted.delete();
+            throw new IOException("Could not install compacted journal segment");
+        }
+        for (int i = 1; i < segments.length; i++) {
+            if (!segments[i].delete()) {
+                Log.w(TAG, "Could not delete journal segment " + segments[i].getName());
+            }
+        }
+        activeSegment = null;
+    }
+
+    // Atomically replaces target with source. Only overridden by tests.
+    boolean installSegment(File source, File target) {
+        return source.renameTo(target);
+    }
+
+    long sizeInBytes() {
+        long size = 0;
+        for (File segment : listSegments()) {
+            size += segment.length();
+        }
+        return size;
+    }
+
+    int segmentCount() {
+        return listSegments().length;
+    }
+
+    private File getSegmentForAppend() throws IOException {
+        if (activeSegment == null
+                || !activeSegment.exists()
+                || activeSegment.length() >= maxSegmentBytes) {
+            if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+                throw new IOException("Could not create journal directory " + directory);
+            }
+            // Always start a fresh segment rather than reopening one from a previous process,
+            // which may end in a torn write.
+            activeSegment = new File(directory, SEGMENT_PREFIX + allocateSequence());
+        }
+        return activeSegment;
+    }
+
+    private long allocateSequence() {
+        if (nextSequence < 0) {
+            nextSequence = 0;
+            for (File segment : listSegments()) {
+                nextSequence = Math.max(nextSequence, parseSequence(segment) + 1);
+            }
+        }
+        return nextSequence++;
+    }
+
+    private File[] listSegments() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        if (!deletedTempFiles) {
+            // Left over from a compaction that never got installed, its sources are still there.
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(TEMP_SUFFIX)) {
+                    file.delete();
+                }
+            }
+            deletedTempFiles = true;
+        }
+
+        List<File> segments = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (parseSequence(file) >= 0) {
+                segments.add(file);
+            }
+        }
+        File[] result = segments.toArray(new File[segments.size()]);
+        Arrays.sort(result, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsSequence = parseSequence(lhs);
+                long rhsSequence = parseSequence(rhs);
+                return lhsSequence < rhsSequence ? -1 : (lhsSequence == rhsSequence ? 0 : 1);
+            }
+        });
+        return result;
+    }
+
+    private static long parseSequence(File file) {
+        String name = file.getName();
+        if (!name.startsWith(SEGMENT_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void writeRecord(
+            OutputStream out,
+            AccessTokenAppIdPair accessTokenAppIdPair,
+            AppEvent appEvent) throws IOException {
+        recordBuffer.reset();
+        DataOutputStream payload = new DataOutputStream(recordBuffer);
+        payload.writeByte(RECORD_VERSION);
+        writeString(payload, accessTokenAppIdPair.getAccessTokenString());
+        writeString(payload, accessTokenAppIdPair.getApplicationId());
+        writeString(payload, appEvent.getJSONObject().toString());
+        payload.writeBoolean(appEvent.getIsImplicit());
+        payload.writeBoolean(appEvent.getIsInBackground());
+        writeString(payload, appEvent.getChecksum());
+        payload.flush();
+
+        byte[] bytes = recordBuffer.toByteArray();
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(bytes.length);
+        dataOut.writeInt((int) crc.getValue());
+        dataOut.write(bytes);
+    }
+
+    private int readSegment(File segment, RecordHandler handler) {
+        int count = 0;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+            byte[] buffer = new byte[512];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int expectedCrc = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    Log.w(TAG, "Invalid record length in " + segment.getName());
+                    break;
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[length];
+                }
+                in.readFully(buffer, 0, length);
+
+                crc.reset();
+                crc.update(buffer, 0, length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    Log.w(TAG, "Checksum mismatch in " + segment.getName());
+                    break;
+                }
+
+                if (decodeRecord(buffer, length, handler)) {
+                    count++;
+                }
+            }
+        } catch (EOFException e) {
+            Log.w(TAG, "Truncated record in " + segment.getName());
+        } catch (IOException e) {
+            Log.w(TAG, "Got unexpected exception while reading events: ", e);
+        } finally {
+            Utility.closeQuietly(in);
+        }
+        return count;
+    }
+
+    private static boolean decodeRecord(byte[] buffer, int length, RecordHandler handler)
+            throws IOException {
+        DataInputStream payload = new DataInputStream(
+                new ByteArrayInputStream(buffer, 0, length));
+        int version = payload.readUnsignedByte();
+        if (version != RECORD_VERSION) {
+            return false;
+        }
+
+        String accessTokenString = readString(payload);
+        String applicationId = readString(payload);
+        String jsonString = readString(payload);
+        boolean isImplicit = payload.readBoolean();
+        boolean inBackground = payload.readBoolean();
+        String checksum = readString(payload);
+
+        AppEvent appEvent;
+        try {
+            appEvent = AppEvent.fromPersistedJSON(jsonString, isImplicit, inBackground, checksum);
+        } catch (JSONException e) {
+            return false;
+        }
+        handler.onRecord(new AccessTokenAppIdPair(accessTokenString, applicationId), appEvent);
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
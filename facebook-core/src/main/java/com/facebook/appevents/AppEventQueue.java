@@ -29,6 +29,7 @@ import android.util.Log;
 import com.facebook.FacebookRequestError;
 import com.facebook.FacebookSdk;
 import com.facebook.GraphRequest;
+import com.facebook.GraphRequestBatch;
 import com.facebook.GraphResponse;
 import com.facebook.LoggingBehavior;
 import com.facebook.internal.FetchedAppSettings;
@@ -45,6 +46,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class AppEventQueue {
     private static final String TAG = AppEventQueue.class.getName();
@@ -56,6 +59,13 @@ class AppEventQueue {
     private static final ScheduledExecutorService singleThreadExecutor =
             Executors.newSingleThreadScheduledExecutor();
     private static ScheduledFuture scheduledFuture;
+    private static final AppEventRingBuffer pendingEvents = new AppEventRingBuffer();
+    private static final AtomicBoolean drainScheduled = new AtomicBoolean();
+    // Events logged through add() since the last flush or persist, whether or not they have been
+    // drained into the collection yet.
+    private static final AtomicInteger loggedEventCount = new AtomicInteger();
+    // How many of those have reached the collection. Only touched by the singleThreadExecutor
+    private static int collectedEventCount;
 
     // Only call for the singleThreadExecutor
     private static final Runnable flushRunnable = new Runnable() {
@@ -70,12 +80,25 @@ class AppEventQueue {
         }
     };
 
+    // Drains events logged through add() into the collection and checks whether they should be
+    // flushed. Only call for the singleThreadExecutor
+    private static final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drainScheduled.set(false);
+            drainPendingEvents();
+            flushIfOverThreshold();
+        }
+    };
+
     public static void persistToDisk() {
         singleThreadExecutor.execute(new Runnable() {
             @Override
             public void run() {
+                drainPendingEvents();
                 AppEventStore.persistEvents(appEventCollection);
                 appEventCollection = new AppEventCollection();
+                resetEventCount();
             }
         });
     }
@@ -93,39 +116,73 @@ class AppEventQueue {
     public static void add(
             final AccessTokenAppIdPair accessTokenAppId,
             final AppEvent appEvent) {
-        singleThreadExecutor.execute(new Runnable() {
-            @Override
-            public void run() {
-                appEventCollection.addEvent(accessTokenAppId, appEvent);
-
-                if (AppEventsLogger.getFlushBehavior() !=
-                        AppEventsLogger.FlushBehavior.EXPLICIT_ONLY
-                        && appEventCollection.getEventCount() >
-                        NUM_LOG_EVENTS_TO_TRY_TO_FLUSH_AFTER) {
-                    flushAndWait(FlushReason.EVENT_THRESHOLD);
-                } else if (scheduledFuture == null) {
-                    scheduledFuture = singleThreadExecutor.schedule(
-                            flushRunnable,
-                            FLUSH_PERIOD_IN_SECONDS,
-                            TimeUnit.SECONDS
-                    );
+        loggedEventCount.incrementAndGet();
+        if (!pendingEvents.offer(accessTokenAppId, appEvent)) {
+            // The buffer is full, hand the event to the executor directly rather than dropping it.
+            singleThreadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drainPendingEvents();
+                    appEventCollection.addEvent(accessTokenAppId, appEvent);
+                    collectedEventCount++;
+                    flushIfOverThreshold();
                 }
-            }
-        });
+            });
+        }
+
+        // Only one drain needs to be queued at a time, it picks up every event offered before it
+        // starts running.
+        if (drainScheduled.compareAndSet(false, true)) {
+            singleThreadExecutor.execute(drainRunnable);
+        }
     }
 
     public static Set<AccessTokenAppIdPair> getKeySet() {
+        // Read the ring first: the drain adds an event to the collection before taking it out of
+        // the ring, so an event drained in between is still found in the collection.
+        Set<AccessTokenAppIdPair> keys = pendingEvents.keySet();
         // This is safe to call outside of the singleThreadExecutor since
         // the appEventCollection is volatile and the modifying methods within the
         // class are synchronized.
-        return appEventCollection.keySet();
+        keys.addAll(appEventCollection.keySet());
+        return keys;
+    }
+
+    // Only call for the singleThreadExecutor
+    private static void drainPendingEvents() {
+        collectedEventCount += pendingEvents.drainTo(appEventCollection);
+    }
+
+    // Only call for the singleThreadExecutor
+    private static void flushIfOverThreshold() {
+        if (AppEventsLogger.getFlushBehavior() !=
+                AppEventsLogger.FlushBehavior.EXPLICIT_ONLY
+                && loggedEventCount.get() > NUM_LOG_EVENTS_TO_TRY_TO_FLUSH_AFTER) {
+            flushAndWait(FlushReason.EVENT_THRESHOLD);
+        } else if (scheduledFuture == null) {
+            scheduledFuture = singleThreadExecutor.schedule(
+                    flushRunnable,
+                    FLUSH_PERIOD_IN_SECONDS,
+                    TimeUnit.SECONDS
+            );
+        }
+    }
+
+    // Forgets the events that have left the collection. Events still in the ring stay counted.
+    // Only call for the singleThreadExecutor
+    private static void resetEventCount() {
+        loggedEventCount.addAndGet(-collectedEventCount);
+        collectedEventCount = 0;
     }
 
     static void flushAndWait(FlushReason reason) {
-        // Read and send any persisted events
-        PersistedEvents result = AppEventStore.readAndClearStore();
-        // Add any of the persisted app events to our list of events to send
-        appEventCollection.addPersistedEvents(result);
+        drainPendingEvents();
+
+        // Stream any persisted app events into our list of events to send
+        AppEventStore.readAndClearStore(appEventCollection);
+
+        // Sending moves every accumulated event out of the collection, even if the send fails.
+        resetEventCount();
 
         FlushStatistics flushResults;
 
@@ -176,10 +233,15 @@ class AppEventQueue {
                     flushResults.numEvents,
                     reason.toString());
 
-            for (GraphRequest request : requestsToExecute) {
-                // Execute the request synchronously. Callbacks will take care of handling errors
-                // and updating our final overall result.
-                request.executeAndWait();
+            // Send the requests for all pairs over as few connections as possible, in the
+            // background lane. Wait for them; callbacks will take care of handling errors and
+            // updating our final overall result. A batch of one is sent as a plain request.
+            for (int i = 0; i < requestsToExecute.size(); i += GraphRequest.MAXIMUM_BATCH_SIZE) {
+                GraphRequestBatch batch = new GraphRequestBatch(requestsToExecute.subList(
+                        i,
+                        Math.min(i + GraphRequest.MAXIMUM_BATCH_SIZE, requestsToExecute.size())));
+                batch.setBackgroundPriority(true);
+                batch.executeAndWait();
             }
             return flushResults;
         }
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of logged app events waiting to be added to the {@link AppEventCollection}.
+ *
+ * Any number of threads may {@link #offer} events concurrently without taking a lock: a producer
+ * claims a slot by advancing the tail with a compare-and-set and then publishes its entry into
+ * that slot. A single consumer thread drains published entries in order. A slot that has been
+ * claimed but not yet published ends the current drain; it is picked up by the next one.
+ *
+ * The number of pending events is kept in an atomic counter so that it can be read from any
+ * thread without walking the queue.
+ */
+class AppEventRingBuffer {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    // Only written by the consumer thread.
+    private volatile long head;
+
+    AppEventRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    AppEventRingBuffer(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds an event to the queue. Safe to call from any thread.
+     *
+     * @return false if the queue is full and the event was not added
+     */
+    boolean offer(AccessTokenAppIdPair accessTokenAppId, AppEvent appEvent) {
+        long position;
+        do {
+            position = tail.get();
+            if (position - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+
+        size.incrementAndGet();
+        slots.set((int) (position & mask), new Entry(accessTokenAppId, appEvent));
+        return true;
+    }
+
+    /**
+     * Moves every published event into the collection, in the order they were claimed. Must only
+     * be called from the consumer thread.
+     *
+     * @return the number of events moved
+     */
+    int drainTo(AppEventCollection appEventCollection) {
+        int drained = 0;
+        long position = head;
+        while (true) {
+            int index = (int) (position & mask);
+            Entry entry = slots.get(index);
+            if (entry == null) {
+                break;
+            }
+            // Added before the slot is cleared, so keySet() sees the event in one place or the
+            // other.
+            appEventCollection.addEvent(entry.accessTokenAppId, entry.appEvent);
+            slots.set(index, null);
+            position++;
+            head = position;
+            drained++;
+        }
+
+        if (drained > 0) {
+            size.addAndGet(-drained);
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the keys of the published events that have not been drained yet. Safe to call from
+     * any thread; events drained while it runs may or may not be included.
+     */
+    Set<AccessTokenAppIdPair> keySet() {
+        Set<AccessTokenAppIdPair> keys = new HashSet<>();
+        long end = tail.get();
+        for (long position = head; position < end; position++) {
+            Entry entry = slots.get((int) (position & mask));
+            if (entry != null) {
+                keys.add(entry.accessTokenAppId);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the number of events that have been offered and not drained yet.
+     */
+    int size() {
+        return size.get();
+    }
+
+    private static class Entry {
+        final AccessTokenAppIdPair accessTokenAppId;
+        final AppEvent appEvent;
+
+        Entry(AccessTokenAppIdPair accessTokenAppId, AppEvent appEvent) {
+            this.accessTokenAppId = accessTokenAppId;
+            this.appEvent = appEvent;
+        }
+    }
+}
@@ -28,57 +28,109 @@ import com.facebook.appevents.internal.AppEventUtility;
 import com.facebook.internal.Utility;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
+import java.util.List;
 
 class AppEventStore {
     private static final String TAG = AppEventStore.class.getName();
+    // Whole-file store written by previous versions of the SDK, only read for migration.
     private static final String PERSISTED_EVENTS_FILENAME = "AppEventsLogger.persistedevents";
+    private static final String JOURNAL_DIRECTORY_NAME = "AppEventsLogger.journal";
+
+    private static AppEventJournal journal;
 
     public static synchronized void persistEvents(
             final AccessTokenAppIdPair accessTokenAppIdPair,
             final SessionEventsState appEvents) {
         AppEventUtility.assertIsNotMainThread();
-        PersistedEvents persistedEvents = readAndClearStore();
-
-        if (persistedEvents.containsKey(accessTokenAppIdPair)) {
-            persistedEvents
-                    .get(accessTokenAppIdPair)
-                    .addAll(appEvents.getEventsToPersist());
-        } else {
-            persistedEvents.addEvents(accessTokenAppIdPair, appEvents.getEventsToPersist());
-        }
-
-        saveEventsToDisk(persistedEvents);
+        appendToJournal(accessTokenAppIdPair, appEvents.getEventsToPersist());
     }
 
     public static synchronized void persistEvents(
             final AppEventCollection eventsToPersist) {
         AppEventUtility.assertIsNotMainThread();
-        PersistedEvents persistedEvents = readAndClearStore();
         for (AccessTokenAppIdPair accessTokenAppIdPair : eventsToPersist.keySet()) {
             SessionEventsState sessionEventsState = eventsToPersist.get(
                     accessTokenAppIdPair);
-            persistedEvents.addEvents(
-                    accessTokenAppIdPair,
-                    sessionEventsState.getEventsToPersist());
+            appendToJournal(accessTokenAppIdPair, sessionEventsState.getEventsToPersist());
         }
-
-        saveEventsToDisk(persistedEvents);
     }
 
     // Only call from singleThreadExecutor
     public static synchronized PersistedEvents readAndClearStore() {
+        final PersistedEvents persistedEvents = new PersistedEvents();
+        readAndClearStore(new AppEventJournal.RecordHandler() {
+            @Override
+            public void onRecord(AccessTokenAppIdPair accessTokenAppIdPair, AppEvent appEvent) {
+                persistedEvents.addEvent(accessTokenAppIdPair, appEvent);
+            }
+        });
+        return persistedEvents;
+    }
+
+    // Only call from singleThreadExecutor
+    public static synchronized void readAndClearStore(
+            final AppEventCollection appEventCollection) {
+        readAndClearStore(new AppEventJournal.RecordHandler() {
+            @Override
+            public void onRecord(AccessTokenAppIdPair accessTokenAppIdPair, AppEvent appEvent) {
+                appEventCollection.addEvent(accessTokenAppIdPair, appEvent);
+            }
+        });
+    }
+
+    private static void readAndClearStore(AppEventJournal.RecordHandler handler) {
         AppEventUtility.assertIsNotMainThread();
 
+        PersistedEvents legacyEvents = readAndClearLegacyStore();
+        if (legacyEvents != null) {
+            for (AccessTokenAppIdPair accessTokenAppIdPair : legacyEvents.keySet()) {
+                for (AppEvent appEvent : legacyEvents.get(accessTokenAppIdPair)) {
+                    handler.onRecord(accessTokenAppIdPair, appEvent);
+                }
+            }
+        }
+
+        try {
+            getJournal().readAndClear(handler);
+        } catch (Exception e) {
+            Log.w(TAG, "Got unexpected exception while reading events: ", e);
+        }
+    }
+
+    private static void appendToJournal(
+            AccessTokenAppIdPair accessTokenAppIdPair,
+            List<AppEvent> appEvents) {
+        try {
+            getJournal().append(accessTokenAppIdPair, appEvents);
+        } catch (Exception e) {
+            Log.w(TAG, "Got unexpected exception while persisting events: ", e);
+        }
+    }
+
+    private static AppEventJournal getJournal() {
+        if (journal == null) {
+            Context context = FacebookSdk.getApplicationContext();
+            journal = new AppEventJournal(
+                    new File(context.getFilesDir(), JOURNAL_DIRECTORY_NAME));
+        }
+        return journal;
+    }
+
+    private static PersistedEvents readAndClearLegacyStore() {
+        Context context = FacebookSdk.getApplicationContext();
+        File legacyFile = context.getFileStreamPath(PERSISTED_EVENTS_FILENAME);
+        if (!legacyFile.exists()) {
+            return null;
+        }
+
         MovedClassObjectInputStream ois = null;
         PersistedEvents persistedEvents = null;
-        Context context = FacebookSdk.getApplicationContext();
         try {
             InputStream is = context.openFileInput(PERSISTED_EVENTS_FILENAME);
             ois = new MovedClassObjectInputStream(new BufferedInputStream(is));
@@ -91,48 +143,18 @@ class AppEventStore {
         } finally {
             Utility.closeQuietly(ois);
 
-
             try {
-                // Note: We delete the store before we store the events; this means we'd
-                // prefer to lose some events in the case of exception rather than
-                // potentially log them twice.
                 // Always delete this file after the above try catch to recover from read
-                // errors.
-                context.getFileStreamPath(PERSISTED_EVENTS_FILENAME).delete();
+                // errors; events are only ever written to the journal from now on.
+                legacyFile.delete();
             } catch (Exception ex) {
                 Log.w(TAG, "Got unexpected exception when removing events file: ", ex);
             }
         }
 
-        if (persistedEvents == null) {
-            persistedEvents = new PersistedEvents();
-        }
-
         return persistedEvents;
     }
 
-    // Only call from singleThreadExecutor
-    private static void saveEventsToDisk(
-            PersistedEvents eventsToPersist) {
-        ObjectOutputStream oos = null;
-        Context context = FacebookSdk.getApplicationContext();
-        try {
-            oos = new ObjectOutputStream(
-                    new BufferedOutputStream(
-                            context.openFileOutput(PERSISTED_EVENTS_FILENAME, 0)));
-            oos.writeObject(eventsToPersist);
-        } catch (Exception e) {
-            Log.w(TAG, "Got unexpected exception while persisting events: ", e);
-            try {
-                context.getFileStreamPath(PERSISTED_EVENTS_FILENAME).delete();
-            } catch (Exception innerException) {
-                // ignore
-            }
-        } finally {
-            Utility.closeQuietly(oos);
-        }
-    }
-
     private static class MovedClassObjectInputStream extends ObjectInputStream {
         private static final String ACCESS_TOKEN_APP_ID_PAIR_SERIALIZATION_PROXY_V1_CLASS_NAME =
                 "com.facebook.appevents.AppEventsLogger$AccessTokenAppIdPair$SerializationProxyV1";
@@ -31,7 +31,9 @@ import android.webkit.WebView;
 import com.facebook.AccessToken;
 import com.facebook.FacebookSdk;
 import com.facebook.GraphRequest;
+import com.facebook.StartupTraceListener;
 import com.facebook.appevents.internal.AutomaticAnalyticsLogger;
+import com.facebook.internal.StartupTrace;
 
 import java.math.BigDecimal;
 import java.util.Currency;
@@ -246,7 +248,9 @@ public class AppEventsLogger {
      * @param applicationId The String applicationId
      */
     public static void initializeLib(Context context, String applicationId) {
+        long startTimeNanos = StartupTrace.begin();
         AppEventsLoggerImpl.initializeLib(context, applicationId);
+        StartupTrace.end(StartupTraceListener.SPAN_APP_EVENTS_INITIALIZE, startTimeNanos);
     }
 
     /**
@@ -36,6 +36,7 @@ import com.facebook.AccessToken;
 import com.facebook.FacebookException;
 import com.facebook.FacebookSdk;
 import com.facebook.GraphRequest;
+import com.facebook.GraphRequestBatch;
 import com.facebook.HttpMethod;
 import com.facebook.LoggingBehavior;
 import com.facebook.appevents.internal.ActivityLifecycleTracker;
@@ -498,7 +499,9 @@ class AppEventsLoggerImpl {
                         HttpMethod.POST,
                         callback);
                 request.setSkipClientToken(true);
-                request.executeAsync();
+                GraphRequestBatch batch = new GraphRequestBatch(request);
+                batch.setBackgroundPriority(true);
+                batch.executeAsync();
             }
         });
     }
@@ -21,6 +21,7 @@
 package com.facebook.appevents;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -58,6 +59,15 @@ class PersistedEvents implements Serializable {
         events.get(accessTokenAppIdPair).addAll(appEvents);
     }
 
+    public void addEvent(AccessTokenAppIdPair accessTokenAppIdPair, AppEvent appEvent) {
+        List<AppEvent> appEvents = events.get(accessTokenAppIdPair);
+        if (appEvents == null) {
+            appEvents = new ArrayList<>();
+            events.put(accessTokenAppIdPair, appEvents);
+        }
+        appEvents.add(appEvent);
+    }
+
     static class SerializationProxyV1 implements Serializable {
         private static final long serialVersionUID = 2016_06_29_001L;
         private final HashMap<AccessTokenAppIdPair, List<AppEvent>> proxyEvents;
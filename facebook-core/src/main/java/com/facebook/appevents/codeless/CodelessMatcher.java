@@ -24,6 +24,7 @@ import android.app.Activity;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
@@ -42,7 +43,6 @@ import com.facebook.appevents.codeless.internal.EventBinding;
 import com.facebook.internal.FetchedAppSettings;
 import com.facebook.internal.FetchedAppSettingsManager;
 import com.facebook.internal.InternalSettings;
-import com.facebook.internal.Utility;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
@@ -195,8 +195,20 @@ public class CodelessMatcher {
 
     protected static class ViewMatcher implements ViewTreeObserver.OnGlobalLayoutListener,
             ViewTreeObserver.OnScrollChangedListener, Runnable {
+        private static final long MIN_MATCH_INTERVAL_MILLIS = 200;
+
         private WeakReference<View> rootView;
+
         @Nullable private List<EventBinding> eventBindings;
+        private ViewPathTrie pathTrie;
+        private boolean isMatchScheduled;
+        private long lastMatchTimeMillis;
+        private final Runnable matchRunnable = new Runnable() {
+            @Override
+            public void run() {
+                matchSnapshot();
+            }
+        };
         private final Handler handler;
         private HashMap<String, String> delegateMap;
         private final String activityName;
@@ -222,7 +234,17 @@ public class CodelessMatcher {
                 return;
             }
 
-            this.eventBindings = EventBinding.parseArray(appSettings.getEventBindings());
+            List<EventBinding> bindings =
+                    EventBinding.parseArray(appSettings.getEventBindings());
+            // Only keep the bindings for this activity, findView would skip the others anyway.
+            this.eventBindings = new ArrayList<>();
+            for (EventBinding binding : bindings) {
+                if (binding != null && (TextUtils.isEmpty(binding.getActivityName()) ||
+                        binding.getActivityName().equals(this.activityName))) {
+                    this.eventBindings.add(binding);
+                }
+            }
+            this.pathTrie = new ViewPathTrie(this.eventBindings, Constants.MAX_TREE_DEPTH);
 
             if (this.eventBindings != null) {
                 View rootView = this.rootView.get();
@@ -249,11 +271,60 @@ public class CodelessMatcher {
             startMatch();
         }
 
+        // Layout and scroll callbacks can fire every frame, e.g. during a fling. Matching runs at
+        // most once per interval, with a trailing run after the last callback.
         private void startMatch() {
-            if (this.eventBindings != null && this.rootView.get() != null) {
-                for (int i = 0; i < this.eventBindings.size(); i++) {
-                    EventBinding binding = this.eventBindings.get(i);
-                    findView(binding, this.rootView.get());
+            if (this.eventBindings == null || this.isMatchScheduled) {
+                return;
+            }
+            this.isMatchScheduled = true;
+            long delay = Math.max(
+                    0,
+                    this.lastMatchTimeMillis + MIN_MATCH_INTERVAL_MILLIS
+                            - SystemClock.uptimeMillis());
+            this.handler.postDelayed(this.matchRunnable, delay);
+        }
+
+        // Captures a snapshot of the hierarchy on the UI thread, matches it against the bindings
+        // on a background thread, and comes back to the UI thread to attach the listeners.
+        private void matchSnapshot() {
+            this.isMatchScheduled = false;
+            View rootView = this.rootView.get();
+            if (this.eventBindings == null || rootView == null) {
+                return;
+            }
+            this.lastMatchTimeMillis = SystemClock.uptimeMillis();
+
+            final ViewPathTrie pathTrie = this.pathTrie;
+            final ViewSnapshot snapshot = pathTrie.capture(rootView);
+            FacebookSdk.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    final List<List<MatchedView>> matches =
+                            pathTrie.match(snapshot, activityName);
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            attachMatches(pathTrie, matches);
+                        }
+                    });
+                }
+            });
+        }
+
+        private void attachMatches(ViewPathTrie pathTrie, List<List<MatchedView>> matches) {
+            View rootView = this.rootView.get();
+            if (rootView == null || pathTrie != this.pathTrie) {
+                return;
+            }
+            for (int i = 0; i < this.eventBindings.size(); i++) {
+                EventBinding binding = this.eventBindings.get(i);
+                if (pathTrie.isCompiled(i)) {
+                    for (MatchedView view : matches.get(i)) {
+                        attachListener(view, rootView, binding);
+                    }
+                } else {
+                    findView(binding, rootView);
                 }
             }
         }
@@ -360,7 +431,7 @@ public class CodelessMatcher {
             return result;
         }
 
-        private static boolean isTheSameView(
+        static boolean isTheSameView(
                 final View targetView,
                 final PathComponent pathElement,
                 final int index) {
@@ -368,20 +439,10 @@ public class CodelessMatcher {
                 return false;
             }
 
-            if (!targetView.getClass().getCanonicalName().equals(pathElement.className)) {
-                if (pathElement.className.matches(".*android\\..*")) {
-                    String[] names = pathElement.className.split("\\.");
-                    if (names.length > 0) {
-                        String SimpleName = names[names.length - 1];
-                        if (!targetView.getClass().getSimpleName().equals(SimpleName)) {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                } else {
-                    return false;
-                }
+            if (!pathElement.matchesClassName(
+                    ViewAttributeCache.getCanonicalClassName(targetView),
+                    ViewAttributeCache.getSimpleClassName(targetView))) {
+                return false;
             }
 
             if ((pathElement.matchBitmask
@@ -393,48 +454,38 @@ public class CodelessMatcher {
 
             if ((pathElement.matchBitmask
                     & MatchBitmaskType.TEXT.getValue()) > 0) {
-                String pathText = pathElement.text;
                 String text = ViewHierarchy.getTextOfView(targetView);
-                String hashedText = Utility.coerceValueIfNullOrEmpty(
-                        Utility.sha256hash(text), "");
-
-                if (!pathText.equals(text) && !pathText.equals(hashedText)) {
+                if (!matchesAttribute(
+                        pathElement.text, targetView, ViewAttributeCache.TEXT, text)) {
                     return false;
                 }
             }
 
             if ((pathElement.matchBitmask
                     & MatchBitmaskType.DESCRIPTION.getValue()) > 0) {
-                String pathDesc = pathElement.description;
                 String targetDesc = targetView.getContentDescription() == null ? "" :
                         String.valueOf(targetView.getContentDescription());
-                String hashedDesc = Utility.coerceValueIfNullOrEmpty(
-                        Utility.sha256hash(targetDesc), "");
-                if (!pathDesc.equals(targetDesc) && !pathDesc.equals(hashedDesc)) {
+                if (!matchesAttribute(pathElement.description,
+                        targetView, ViewAttributeCache.DESCRIPTION, targetDesc)) {
                     return false;
                 }
             }
 
             if ((pathElement.matchBitmask
                     & MatchBitmaskType.HINT.getValue()) > 0) {
-                String pathHint = pathElement.hint;
                 String targetHint = ViewHierarchy.getHintOfView(targetView);
-                String hashedHint = Utility.coerceValueIfNullOrEmpty(
-                        Utility.sha256hash(targetHint), "");
-
-                if (!pathHint.equals(targetHint) && !pathHint.equals(hashedHint)) {
+                if (!matchesAttribute(
+                        pathElement.hint, targetView, ViewAttributeCache.HINT, targetHint)) {
                     return false;
                 }
             }
 
             if ((pathElement.matchBitmask
                     & MatchBitmaskType.TAG.getValue()) > 0) {
-                String tag = pathElement.tag;
                 String targetTag = targetView.getTag() == null ? "" :
                         String.valueOf(targetView.getTag());
-                String hashedTag = Utility.coerceValueIfNullOrEmpty(
-                        Utility.sha256hash(targetTag), "");
-                if (!tag.equals(targetTag) && !tag.equals(hashedTag)) {
+                if (!matchesAttribute(
+                        pathElement.tag, targetView, ViewAttributeCache.TAG, targetTag)) {
                     return false;
                 }
             }
@@ -442,6 +493,18 @@ public class CodelessMatcher {
             return true;
         }
 
+        // The path value may be either the plain value or its hash. The hash is only needed when
+        // the plain value doesn't match, and is cached per view until the value changes.
+        private static boolean matchesAttribute(
+                final String pathValue,
+                final View targetView,
+                final int attribute,
+                final String targetValue) {
+            return pathValue.equals(targetValue)
+                    || pathValue.equals(
+                            ViewAttributeCache.getHash(targetView, attribute, targetValue));
+        }
+
         private static List<View> findVisibleChildren(ViewGroup viewGroup) {
             List<View> visibleViews = new ArrayList<>();
             final int childCount = viewGroup.getChildCount();
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.view.View;
+
+import com.facebook.internal.Utility;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per view, the hashes of the attributes codeless matching compares against, so that a
+ * view is only hashed again when the attribute actually changes between layout passes. Class
+ * names don't depend on the view instance, so they are kept per view class and read without
+ * locking.
+ *
+ * Views are weakly referenced and drop out of the cache once collected.
+ */
+final class ViewAttributeCache {
+    static final int TEXT = 0;
+    static final int DESCRIPTION = 1;
+    static final int HINT = 2;
+    static final int TAG = 3;
+    private static final int ATTRIBUTE_COUNT = 4;
+
+    private static final Map<View, Entry> entries = new WeakHashMap<>();
+    private static final Map<Class<?>, ClassNames> classNames = new ConcurrentHashMap<>();
+
+    private ViewAttributeCache() {
+    }
+
+    /**
+     * Returns the SHA-256 hash of value, the current value of the given attribute of view. The
+     * hash is only computed again when value differs from the last one seen for the view.
+     */
+    static synchronized String getHash(View view, int attribute, String value) {
+        Entry entry = entries.get(view);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(view, entry);
+        }
+        if (entry.hashes[attribute] == null || !value.equals(entry.values[attribute])) {
+            entry.values[attribute] = value;
+            entry.hashes[attribute] =
+                    Utility.coerceValueIfNullOrEmpty(Utility.sha256hash(value), "");
+        }
+        return entry.hashes[attribute];
+    }
+
+    static String getCanonicalClassName(View view) {
+        return getClassNames(view.getClass()).canonicalName;
+    }
+
+    static String getSimpleClassName(View view) {
+        return getClassNames(view.getClass()).simpleName;
+    }
+
+    private static ClassNames getClassNames(Class<?> viewClass) {
+        ClassNames names = classNames.get(viewClass);
+        if (names == null) {
+            // Racing threads compute equal names, so whichever is stored last is fine.
+            names = new ClassNames(viewClass);
+            classNames.put(viewClass, names);
+        }
+        return names;
+    }
+
+    private static class Entry {
+        final String[] values = new String[ATTRIBUTE_COUNT];
+        final String[] hashes = new String[ATTRIBUTE_COUNT];
+    }
+
+    private static class ClassNames {
+        // Null for classes without a canonical name, e.g. anonymous views.
+        final String canonicalName;
+        final String simpleName;
+
+        ClassNames(Class<?> viewClass) {
+            canonicalName = viewClass.getCanonicalName();
+            simpleName = viewClass.getSimpleName();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.Nullable;
 import android.util.Base64;
+import android.util.JsonWriter;
 import android.util.Log;
 import android.view.View;
 
@@ -45,12 +46,16 @@ import com.facebook.internal.InternalSettings;
 import com.facebook.internal.Logger;
 import com.facebook.internal.Utility;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -70,6 +75,10 @@ public class ViewIndexer {
     private WeakReference<Activity> activityReference;
     private Timer indexingTimer;
     private String previousDigest;
+    // Digest of the hierarchy, without the screenshot, of the last tree sent successfully.
+    private volatile byte[] previousTreeDigest;
+    // Reused across ticks by the indexing timer thread to stream the hierarchy into.
+    private final DigestingWriter viewBuffer = new DigestingWriter();
     private static ViewIndexer instance;
 
     public ViewIndexer(Activity activity) {
@@ -102,33 +111,7 @@ public class ViewIndexer {
                         return;
                     }
 
-                    final FutureTask<String> screenshotFuture =
-                            new FutureTask<>(new ScreenshotTaker(rootView));
-                    uiThreadHandler.post(screenshotFuture);
-
-                    String screenshot = "";
-                    try {
-                        screenshot = screenshotFuture.get(1, TimeUnit.SECONDS);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to take screenshot.", e);
-                    }
-
-                    JSONObject viewTree = new JSONObject();
-
-                    try {
-                        viewTree.put("screenname", activityName);
-                        viewTree.put("screenshot", screenshot);
-
-                        JSONArray viewArray = new JSONArray();
-                        JSONObject rootViewInfo = ViewHierarchy.getDictionaryOfView(rootView);
-                        viewArray.put(rootViewInfo);
-                        viewTree.put("view", viewArray);
-                    } catch (JSONException e) {
-                        Log.e(TAG, "Failed to create JSONObject");
-                    }
-
-                    String tree = viewTree.toString();
-                    sendToServer(tree);
+                    indexViewTree(activityName, rootView);
                 } catch (Exception e) {
                     Log.e(TAG, "UI Component tree indexing failure!", e);
                 }
@@ -143,6 +126,7 @@ public class ViewIndexer {
                         indexingTimer.cancel();
                     }
                     previousDigest = null;
+                    previousTreeDigest = null;
                     indexingTimer = new Timer();
                     indexingTimer.scheduleAtFixedRate(
                             indexingTask,
@@ -156,6 +140,64 @@ public class ViewIndexer {
         });
     }
 
+    /**
+     * Sends the hierarchy under rootView, with a screenshot, unless it is unchanged since the last
+     * tree sent successfully. Called on the indexing timer thread.
+     */
+    void indexViewTree(String activityName, View rootView) {
+        try {
+            writeViewArray(activityName, rootView);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write view hierarchy", e);
+            return;
+        }
+
+        // Most ticks see the same screen as the last upload. Compare the hierarchy before taking
+        // a screenshot, so unchanged frames cost no drawing, JPEG encoding or upload.
+        final byte[] treeDigest = viewBuffer.digest();
+        if (treeDigest != null && Arrays.equals(treeDigest, previousTreeDigest)) {
+            return;
+        }
+
+        final FutureTask<String> screenshotFuture =
+                new FutureTask<>(new ScreenshotTaker(rootView));
+        uiThreadHandler.post(screenshotFuture);
+
+        String screenshot = "";
+        try {
+            screenshot = screenshotFuture.get(1, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to take screenshot.", e);
+        }
+
+        String tree = buildTree(activityName, screenshot, viewBuffer.getBuffer());
+        sendToServer(tree, treeDigest);
+    }
+
+    private void writeViewArray(String activityName, View rootView) throws IOException {
+        viewBuffer.reset(activityName);
+        JsonWriter writer = new JsonWriter(viewBuffer);
+        writer.beginArray();
+        ViewHierarchy.writeDictionaryOfView(rootView, writer);
+        writer.endArray();
+        writer.flush();
+    }
+
+    private static String buildTree(
+            String activityName,
+            String screenshot,
+            CharSequence viewArray) {
+        String quotedName = JSONObject.quote(activityName);
+        String quotedScreenshot = JSONObject.quote(screenshot);
+        StringBuilder tree = new StringBuilder(quotedName.length()
+                + quotedScreenshot.length() + viewArray.length() + 48);
+        tree.append("{\"screenname\":").append(quotedName)
+                .append(",\"screenshot\":").append(quotedScreenshot)
+                .append(",\"view\":").append(viewArray)
+                .append('}');
+        return tree.toString();
+    }
+
     public void unschedule() {
         final Activity activity = activityReference.get();
         if (null == activity) {
@@ -185,6 +227,10 @@ public class ViewIndexer {
     }
 
     private void sendToServer(final String tree) {
+        sendToServer(tree, null);
+    }
+
+    private void sendToServer(final String tree, @Nullable final byte[] treeDigest) {
         FacebookSdk.getExecutor().execute(new Runnable() {
             @Override
             public void run() {
@@ -204,6 +250,7 @@ public class ViewIndexer {
                                 Logger.log(LoggingBehavior.APP_EVENTS, TAG,
                                         "Successfully send UI component tree to server");
                                 previousDigest = currentDigest;
+                                previousTreeDigest = treeDigest;
                             }
 
                             if (jsonRes.has(Constants.APP_INDEXING_ENABLED)) {
@@ -288,4 +335,76 @@ public class ViewIndexer {
             return Base64.encodeToString(outputStream.toByteArray(), Base64.NO_WRAP);
         }
     }
+
+    /**
+     * Collects what is written into a reused buffer and digests it on the way, so an unchanged
+     * hierarchy can be detected without copying the buffer.
+     */
+    private static class DigestingWriter extends Writer {
+        private final StringBuilder buffer = new StringBuilder();
+        @Nullable private final MessageDigest messageDigest;
+        private byte[] scratch = new byte[256];
+
+        DigestingWriter() {
+            MessageDigest messageDigest = null;
+            try {
+                messageDigest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                Log.w(TAG, "MD5 is not available, unchanged trees will be uploaded again.");
+            }
+            this.messageDigest = messageDigest;
+        }
+
+        /**
+         * Clears the buffer and starts a new digest, seeded with the given prefix.
+         */
+        void reset(String prefix) {
+            buffer.setLength(0);
+            if (messageDigest != null) {
+                messageDigest.reset();
+                update(prefix.toCharArray(), 0, prefix.length());
+            }
+        }
+
+        /**
+         * The digest of the prefix and everything written since the last reset, or null if
+         * digests are not available.
+         */
+        @Nullable
+        byte[] digest() {
+            return messageDigest != null ? messageDigest.digest() : null;
+        }
+
+        CharSequence getBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+            if (messageDigest != null) {
+                update(chars, offset, length);
+            }
+        }
+
+        private void update(char[] chars, int offset, int length) {
+            if (scratch.length < length * 2) {
+                scratch = new byte[length * 2];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = chars[offset + i];
+                scratch[i * 2] = (byte) (c >> 8);
+                scratch[i * 2 + 1] = (byte) c;
+            }
+            messageDigest.update(scratch, 0, length * 2);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -0,0 +1,363 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.facebook.appevents.codeless.internal.Constants;
+import com.facebook.appevents.codeless.internal.EventBinding;
+import com.facebook.appevents.codeless.internal.PathComponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.facebook.appevents.codeless.internal.PathComponent.MatchBitmaskType;
+
+/**
+ * The view paths of a set of {@link EventBinding}s compiled into a trie, so that a single walk of
+ * a {@link ViewSnapshot} finds the matches of every binding.
+ *
+ * Bindings that share a path prefix share the trie nodes for it, and each component is tested
+ * once per view no matter how many bindings go through it. A subtree is only visited while some
+ * binding can still match in it. Matches are reported the same way
+ * {@link CodelessMatcher.ViewMatcher#findViewByPath} reports them: the view at the end of the
+ * path and all of its visible descendants, with the same view map keys, in the same order.
+ *
+ * Paths that step to the parent ("..") or stop at the current view (".") can't be expressed as a
+ * walk down the hierarchy; those bindings are left out of the trie and reported by
+ * {@link #isCompiled} so callers can match them separately.
+ *
+ * Matching only reads the snapshot, so it can run off the UI thread; concurrent calls to
+ * {@link #match} are serialized.
+ */
+class ViewPathTrie {
+    private static final String PARENT_CLASS_NAME = "..";
+    private static final String CURRENT_CLASS_NAME = ".";
+
+    private final List<EventBinding> bindings;
+    private final boolean[] compiled;
+    private final Node root = new Node(null);
+    private int attributeMask;
+
+    // Scratch state for match(), reused between walks to avoid allocating per view.
+    private final List<List<Node>> candidatesByDepth = new ArrayList<>();
+    private final List<List<Integer>> capturingByDepth = new ArrayList<>();
+    private int[] indexPath = new int[16];
+    private List<List<CodelessMatcher.MatchedView>> results;
+    private String mapKeyPrefix;
+
+    ViewPathTrie(List<EventBinding> bindings, int maxDepth) {
+        this.bindings = bindings;
+        this.compiled = new boolean[bindings.size()];
+        for (int i = 0; i < bindings.size(); i++) {
+            EventBinding binding = bindings.get(i);
+            if (binding == null) {
+                continue;
+            }
+            List<PathComponent> path = binding.getViewPath();
+            if (path.isEmpty() || path.size() > maxDepth || !isCompilable(path)) {
+                continue;
+            }
+            insert(path, i);
+            compiled[i] = true;
+            for (PathComponent component : path) {
+                attributeMask |= component.matchBitmask;
+            }
+        }
+    }
+
+    /**
+     * Whether the binding at the given position is matched by {@link #match}.
+     */
+    boolean isCompiled(int bindingIndex) {
+        return compiled[bindingIndex];
+    }
+
+    /**
+     * The {@link PathComponent.MatchBitmaskType} values of every attribute that compiled paths
+     * compare against, i.e. the attributes snapshots passed to {@link #match} need to capture.
+     */
+    int getAttributeMask() {
+        return attributeMask;
+    }
+
+    /**
+     * Captures a snapshot of the visible hierarchy under rootView for {@link #match}. Must be
+     * called on the UI thread.
+     *
+     * Only the views some compiled path can reach are captured, judged by the cheap parts of each
+     * path component: the index, the class name and the id. The matched views' descendants are
+     * captured too, as they match along with them, down to {@link Constants#MAX_TREE_DEPTH}.
+     */
+    ViewSnapshot capture(View rootView) {
+        List<Node> rootNodes = getReachableNodes(Collections.singletonList(root), rootView, -1);
+        return captureView(rootView, 0, rootNodes, false);
+    }
+
+    /**
+     * @param nodes     the trie nodes whose component may match this view
+     * @param capturing whether an ancestor of this view may be the end of a path
+     */
+    private ViewSnapshot captureView(View view, int depth, List<Node> nodes, boolean capturing) {
+        boolean childrenCapturing = capturing;
+        boolean hasChildNodes = false;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            childrenCapturing |= !node.bindingIndexes.isEmpty();
+            hasChildNodes |= !node.children.isEmpty();
+        }
+
+        ViewSnapshot[] children = ViewSnapshot.NO_CHILDREN;
+        if ((childrenCapturing || hasChildNodes)
+                && depth < Constants.MAX_TREE_DEPTH
+                && view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            List<View> visibleChildren = new ArrayList<>();
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                View child = viewGroup.getChildAt(i);
+                if (child.getVisibility() == View.VISIBLE) {
+                    visibleChildren.add(child);
+                }
+            }
+            if (!visibleChildren.isEmpty()) {
+                children = new ViewSnapshot[visibleChildren.size()];
+                for (int i = 0; i < children.length; i++) {
+                    View child = visibleChildren.get(i);
+                    List<Node> childNodes = hasChildNodes
+                            ? getReachableNodes(nodes, child, i)
+                            : Collections.<Node>emptyList();
+                    if (childrenCapturing || !childNodes.isEmpty()) {
+                        children[i] =
+                                captureView(child, depth + 1, childNodes, childrenCapturing);
+                    }
+                }
+            }
+        }
+        return new ViewSnapshot(view, attributeMask, children);
+    }
+
+    // The children of the given nodes whose component may match the view.
+    private static List<Node> getReachableNodes(List<Node> parents, View view, int index) {
+        List<Node> reachable = null;
+        for (int i = 0; i < parents.size(); i++) {
+            List<Node> children = parents.get(i).children;
+            for (int j = 0; j < children.size(); j++) {
+                Node child = children.get(j);
+                if (mayMatch(view, child.component, index)) {
+                    if (reachable == null) {
+                        reachable = new ArrayList<>();
+                    }
+                    reachable.add(child);
+                }
+            }
+        }
+        return reachable != null ? reachable : Collections.<Node>emptyList();
+    }
+
+    // The part of ViewSnapshot#matches that needs no attribute values.
+    private static boolean mayMatch(View view, PathComponent component, int index) {
+        if (component.index != -1 && index != component.index) {
+            return false;
+        }
+        if ((component.matchBitmask & MatchBitmaskType.ID.getValue()) > 0
+                && component.id != view.getId()) {
+            return false;
+        }
+        return component.matchesClassName(
+                ViewAttributeCache.getCanonicalClassName(view),
+                ViewAttributeCache.getSimpleClassName(view));
+    }
+
+    /**
+     * Walks the snapshot once and returns the matched views of every compiled binding, indexed by
+     * the binding's position in the list the trie was built from. Map keys start with
+     * mapKeyPrefix, as the ones from findViewByPath start with the passed in mapKey.
+     */
+    synchronized List<List<CodelessMatcher.MatchedView>> match(
+            ViewSnapshot rootView,
+            String mapKeyPrefix) {
+        List<List<CodelessMatcher.MatchedView>> matches = new ArrayList<>(bindings.size());
+        for (int i = 0; i < bindings.size(); i++) {
+            matches.add(new ArrayList<CodelessMatcher.MatchedView>());
+        }
+        if (rootView == null || root.children.isEmpty()) {
+            return matches;
+        }
+
+        this.results = matches;
+        this.mapKeyPrefix = mapKeyPrefix;
+        List<Node> rootCandidates = getCandidates(0);
+        rootCandidates.add(root);
+        try {
+            matchView(rootView, -1, 0, rootCandidates, getCapturing(0));
+        } finally {
+            this.results = null;
+            for (List<Node> candidates : candidatesByDepth) {
+                candidates.clear();
+            }
+            for (List<Integer> capturing : capturingByDepth) {
+                capturing.clear();
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @param candidates nodes whose children are tested against this view
+     * @param capturing bindings matched by an ancestor of this view, which match every
+     *                  descendant of it too
+     */
+    private void matchView(
+            ViewSnapshot view,
+            int index,
+            int depth,
+            List<Node> candidates,
+            List<Integer> capturing) {
+        if (depth == indexPath.length) {
+            int[] grown = new int[depth * 2];
+            System.arraycopy(indexPath, 0, grown, 0, depth);
+            indexPath = grown;
+        }
+        indexPath[depth] = index;
+        String mapKey = null;
+
+        List<Node> nextCandidates = getCandidates(depth + 1);
+        List<Integer> nextCapturing = getCapturing(depth + 1);
+        nextCandidates.clear();
+        nextCapturing.clear();
+
+        for (int i = 0; i < capturing.size(); i++) {
+            int bindingIndex = capturing.get(i);
+            if (mapKey == null) {
+                mapKey = buildMapKey(depth);
+            }
+            results.get(bindingIndex).add(new CodelessMatcher.MatchedView(view.view, mapKey));
+            nextCapturing.add(bindingIndex);
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            List<Node> children = candidates.get(i).children;
+            for (int j = 0; j < children.size(); j++) {
+                Node child = children.get(j);
+                if (!view.matches(child.component, index)) {
+                    continue;
+                }
+                for (int k = 0; k < child.bindingIndexes.size(); k++) {
+                    int bindingIndex = child.bindingIndexes.get(k);
+                    if (mapKey == null) {
+                        mapKey = buildMapKey(depth);
+                    }
+                    results.get(bindingIndex).add(
+                            new CodelessMatcher.MatchedView(view.view, mapKey));
+                    nextCapturing.add(bindingIndex);
+                }
+                if (!child.children.isEmpty()) {
+                    nextCandidates.add(child);
+                }
+            }
+        }
+
+        if (nextCandidates.isEmpty() && nextCapturing.isEmpty()) {
+            return;
+        }
+
+        ViewSnapshot[] children = view.children;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != null) {
+                matchView(children[i], i, depth + 1, nextCandidates, nextCapturing);
+            }
+        }
+    }
+
+    private String buildMapKey(int depth) {
+        StringBuilder builder = new StringBuilder(mapKeyPrefix);
+        for (int i = 0; i <= depth; i++) {
+            builder.append('.').append(indexPath[i]);
+        }
+        return builder.toString();
+    }
+
+    private List<Node> getCandidates(int depth) {
+        while (candidatesByDepth.size() <= depth) {
+            candidatesByDepth.add(new ArrayList<Node>());
+        }
+        return candidatesByDepth.get(depth);
+    }
+
+    private List<Integer> getCapturing(int depth) {
+        while (capturingByDepth.size() <= depth) {
+            capturingByDepth.add(new ArrayList<Integer>());
+        }
+        return capturingByDepth.get(depth);
+    }
+
+    private void insert(List<PathComponent> path, int bindingIndex) {
+        Node node = root;
+        for (PathComponent component : path) {
+            Node next = null;
+            for (Node child : node.children) {
+                if (isSameComponent(child.component, component)) {
+                    next = child;
+                    break;
+                }
+            }
+            if (next == null) {
+                next = new Node(component);
+                node.children.add(next);
+            }
+            node = next;
+        }
+        node.bindingIndexes.add(bindingIndex);
+    }
+
+    private static boolean isCompilable(List<PathComponent> path) {
+        for (PathComponent component : path) {
+            if (PARENT_CLASS_NAME.equals(component.className)
+                    || CURRENT_CLASS_NAME.equals(component.className)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameComponent(PathComponent a, PathComponent b) {
+        return a.className.equals(b.className)
+                && a.index == b.index
+                && a.id == b.id
+                && a.matchBitmask == b.matchBitmask
+                && a.text.equals(b.text)
+                && a.tag.equals(b.tag)
+                && a.description.equals(b.description)
+                && a.hint.equals(b.hint);
+    }
+
+    private static class Node {
+        final PathComponent component;
+        final List<Node> children = new ArrayList<>();
+        final List<Integer> bindingIndexes = new ArrayList<>();
+
+        Node(PathComponent component) {
+            this.component = component;
+        }
+    }
+}
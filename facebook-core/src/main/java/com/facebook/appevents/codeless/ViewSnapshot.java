@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.view.View;
+
+import com.facebook.appevents.codeless.internal.PathComponent;
+import com.facebook.appevents.codeless.internal.ViewHierarchy;
+
+import static com.facebook.appevents.codeless.internal.PathComponent.MatchBitmaskType;
+
+/**
+ * An immutable skeleton of a view hierarchy holding only what codeless matching looks at: class
+ * names, ids, and the text, description, hint and tag values that bindings compare against.
+ *
+ * Snapshots are captured on the UI thread, only as far as some binding can reach, and can then be
+ * matched on any thread, since matching never calls into the views. The views themselves are only
+ * kept so that matches can be mapped back to them on the UI thread.
+ */
+final class ViewSnapshot {
+    static final ViewSnapshot[] NO_CHILDREN = new ViewSnapshot[0];
+
+    final View view;
+    final String canonicalClassName;
+    final String simpleClassName;
+    final int id;
+    // Only captured when some binding compares against them, otherwise null.
+    final String text;
+    final String description;
+    final String hint;
+    final String tag;
+    // Visible children only, in order. A child is null when no binding can match it or anything
+    // under it, so it was not captured.
+    final ViewSnapshot[] children;
+
+    /**
+     * Must be called on the UI thread. Snapshots are captured by {@link ViewPathTrie#capture}.
+     *
+     * @param attributeMask the {@link MatchBitmaskType} values of the attributes to capture
+     */
+    ViewSnapshot(View view, int attributeMask, ViewSnapshot[] children) {
+        this.view = view;
+        this.canonicalClassName = ViewAttributeCache.getCanonicalClassName(view);
+        this.simpleClassName = ViewAttributeCache.getSimpleClassName(view);
+        this.id = view.getId();
+        this.text = (attributeMask & MatchBitmaskType.TEXT.getValue()) > 0
+                ? ViewHierarchy.getTextOfView(view) : null;
+        this.description = (attributeMask & MatchBitmaskType.DESCRIPTION.getValue()) > 0
+                ? valueOf(view.getContentDescription()) : null;
+        this.hint = (attributeMask & MatchBitmaskType.HINT.getValue()) > 0
+                ? ViewHierarchy.getHintOfView(view) : null;
+        this.tag = (attributeMask & MatchBitmaskType.TAG.getValue()) > 0
+                ? valueOf(view.getTag()) : null;
+        this.children = children;
+    }
+
+    /**
+     * The snapshot equivalent of {@link CodelessMatcher.ViewMatcher#isTheSameView}.
+     */
+    boolean matches(PathComponent pathElement, int index) {
+        if (pathElement.index != -1 && index != pathElement.index) {
+            return false;
+        }
+
+        if (!pathElement.matchesClassName(canonicalClassName, simpleClassName)) {
+            return false;
+        }
+
+        if ((pathElement.matchBitmask & MatchBitmaskType.ID.getValue()) > 0
+                && pathElement.id != id) {
+            return false;
+        }
+
+        if ((pathElement.matchBitmask & MatchBitmaskType.TEXT.getValue()) > 0
+                && !matchesAttribute(pathElement.text, ViewAttributeCache.TEXT, text)) {
+            return false;
+        }
+
+        if ((pathElement.matchBitmask & MatchBitmaskType.DESCRIPTION.getValue()) > 0
+                && !matchesAttribute(
+                        pathElement.description, ViewAttributeCache.DESCRIPTION, description)) {
+            return false;
+        }
+
+        if ((pathElement.matchBitmask & MatchBitmaskType.HINT.getValue()) > 0
+                && !matchesAttribute(pathElement.hint, ViewAttributeCache.HINT, hint)) {
+            return false;
+        }
+
+        if ((pathElement.matchBitmask & MatchBitmaskType.TAG.getValue()) > 0
+                && !matchesAttribute(pathElement.tag, ViewAttributeCache.TAG, tag)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean matchesAttribute(String pathValue, int attribute, String value) {
+        if (value == null) {
+            return false;
+        }
+        return pathValue.equals(value)
+                || pathValue.equals(ViewAttributeCache.getHash(view, attribute, value));
+    }
+
+    private static String valueOf(Object value) {
+        return value == null ? "" : String.valueOf(value);
+    }
+}
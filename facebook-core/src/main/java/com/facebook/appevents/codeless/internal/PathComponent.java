@@ -60,6 +60,10 @@ public final class PathComponent {
     public final String hint;
     public final int matchBitmask;
 
+    // Precomputed from className so that matching doesn't run a regex or split per view.
+    private final boolean isAndroidClassName;
+    private final String simpleClassName;
+
     PathComponent(final JSONObject component) throws JSONException {
         className = component.getString(PATH_CLASS_NAME_KEY);
         index = component.optInt(PATH_INDEX_KEY, -1);
@@ -69,5 +73,22 @@ public final class PathComponent {
         description = component.optString(PATH_DESCRIPTION_KEY);
         hint = component.optString(PATH_HINT_KEY);
         matchBitmask = component.optInt(PATH_MATCH_BITMASK_KEY);
+
+        isAndroidClassName = className.contains("android.");
+        String[] names = className.split("\\.");
+        simpleClassName = names.length > 0 ? names[names.length - 1] : null;
+    }
+
+    /**
+     * Returns whether a view class with the given names matches className. Class names
+     * containing "android." also match on the simple name alone.
+     */
+    public boolean matchesClassName(String canonicalName, String simpleName) {
+        if (className.equals(canonicalName)) {
+            return true;
+        }
+        return isAndroidClassName
+                && simpleClassName != null
+                && simpleClassName.equals(simpleName);
     }
 }
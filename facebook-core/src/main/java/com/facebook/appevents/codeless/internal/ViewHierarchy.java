@@ -27,6 +27,7 @@ import android.graphics.drawable.Drawable;
 import android.support.annotation.Nullable;
 import android.support.v4.view.NestedScrollingChild;
 import android.util.Base64;
+import android.util.JsonWriter;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
@@ -52,6 +53,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -245,6 +247,70 @@ public class ViewHierarchy {
         return json;
     }
 
+    /**
+     * Streams the same dictionary as {@link #getDictionaryOfView(View)} to the writer, without
+     * building an intermediate JSONObject per view. Like JSONObject, null values are left out.
+     */
+    public static void writeDictionaryOfView(View view, JsonWriter writer) throws IOException {
+        if (view.getClass().getName().equals(CLASS_RCTROOTVIEW)) {
+            RCTRootViewReference = new WeakReference<>(view);
+        }
+
+        writer.beginObject();
+        writeBasicInfoOfView(view, writer);
+
+        writer.name(CHILDREN_VIEW_KEY).beginArray();
+        List<View> children = getChildrenOfView(view);
+        for (int i = 0; i < children.size(); i++) {
+            writeDictionaryOfView(children.get(i), writer);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void writeBasicInfoOfView(View view, JsonWriter writer) throws IOException {
+        String text = getTextOfView(view);
+        String hint = getHintOfView(view);
+        Object tag = view.getTag();
+        CharSequence description = view.getContentDescription();
+
+        // Anonymous and local classes have no canonical name.
+        String className = view.getClass().getCanonicalName();
+        if (className != null) {
+            writer.name(CLASS_NAME_KEY).value(className);
+        }
+        writer.name(CLASS_TYPE_BITMASK_KEY).value(getClassTypeBitmask(view));
+        writer.name(ID_KEY).value(view.getId());
+        if (!SensitiveUserDataUtils.isSensitiveUserData(view)) {
+            writer.name(TEXT_KEY)
+                    .value(Utility.coerceValueIfNullOrEmpty(Utility.sha256hash(text), ""));
+        } else {
+            writer.name(TEXT_KEY).value("");
+            writer.name(IS_USER_INPUT_KEY).value(true);
+        }
+        writer.name(HINT_KEY)
+                .value(Utility.coerceValueIfNullOrEmpty(Utility.sha256hash(hint), ""));
+        if (tag != null) {
+            writer.name(TAG_KEY).value(
+                    Utility.coerceValueIfNullOrEmpty(Utility.sha256hash(tag.toString()), ""));
+        }
+        if (description != null) {
+            writer.name(DESC_KEY).value(
+                    Utility.coerceValueIfNullOrEmpty(
+                            Utility.sha256hash(description.toString()), ""));
+        }
+
+        writer.name(DIMENSION_KEY).beginObject();
+        writer.name(DIMENSION_TOP_KEY).value(view.getTop());
+        writer.name(DIMENSION_LEFT_KEY).value(view.getLeft());
+        writer.name(DIMENSION_WIDTH_KEY).value(view.getWidth());
+        writer.name(DIMENSION_HEIGHT_KEY).value(view.getHeight());
+        writer.name(DIMENSION_SCROLL_X_KEY).value(view.getScrollX());
+        writer.name(DIMENSION_SCROLL_Y_KEY).value(view.getScrollY());
+        writer.name(DIMENSION_VISIBILITY_KEY).value(view.getVisibility());
+        writer.endObject();
+    }
+
     private static int getClassTypeBitmask(View view) {
         int bitmask = 0;
         if (view instanceof ImageView) {
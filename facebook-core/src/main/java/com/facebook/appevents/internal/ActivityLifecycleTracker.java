@@ -35,15 +35,18 @@ import com.facebook.FacebookSdk;
 import com.facebook.GraphRequest;
 import com.facebook.GraphResponse;
 import com.facebook.LoggingBehavior;
+import com.facebook.StartupTraceListener;
 import com.facebook.appevents.AppEventsLogger;
 import com.facebook.appevents.codeless.CodelessMatcher;
 import com.facebook.appevents.codeless.ViewIndexer;
 import com.facebook.appevents.codeless.ViewIndexingTrigger;
 import com.facebook.core.BuildConfig;
 import com.facebook.internal.AttributionIdentifiers;
+import com.facebook.internal.DeviceContextSnapshot;
 import com.facebook.internal.FetchedAppSettings;
 import com.facebook.internal.FetchedAppSettingsManager;
 import com.facebook.internal.Logger;
+import com.facebook.internal.StartupTrace;
 import com.facebook.internal.Utility;
 
 import org.json.JSONArray;
@@ -90,6 +93,7 @@ public class ActivityLifecycleTracker {
             return;
         }
 
+        long startTimeNanos = StartupTrace.begin();
         ActivityLifecycleTracker.appId = appId;
 
         application.registerActivityLifecycleCallbacks(
@@ -140,6 +144,7 @@ public class ActivityLifecycleTracker {
                         Logger.log(LoggingBehavior.APP_EVENTS, TAG, "onActivityDestroyed");
                     }
                 });
+        StartupTrace.end(StartupTraceListener.SPAN_ACTIVITY_TRACKING_START, startTimeNanos);
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
@@ -390,8 +395,7 @@ public class ActivityLifecycleTracker {
                 extInfoArray.put(BuildConfig.DEBUG ? "1" : "0");
                 extInfoArray.put(AppEventUtility.isEmulator() ? "1" : "0");
                 // Locale
-                Locale locale = Utility.getCurrentLocale();
-                extInfoArray.put(locale.getLanguage() + "_" + locale.getCountry());
+                extInfoArray.put(DeviceContextSnapshot.getInstance(context).getLocale());
                 String extInfo = extInfoArray.toString();
                 requestParameters.putString(com.facebook.appevents.codeless.internal.Constants.DEVICE_SESSION_ID,
                         getCurrentDeviceSessionID());
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.view.Display;
+import android.view.WindowManager;
+
+import org.json.JSONArray;
+
+import java.text.DecimalFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * com.facebook.internal is solely for the use of other packages within the
+ * Facebook SDK for Android. Use of any of the classes in this package is
+ * unsupported, and they may be modified or removed without warning at any time.
+ *
+ * An immutable snapshot of the device and application information sent with app events, along
+ * with its serialized extinfo.
+ *
+ * The snapshot is built once and shared by every payload until the configuration, locale or time
+ * zone changes, or until the periodically refreshed carrier and storage information does. An
+ * application update restarts the process, so the package information never goes stale.
+ */
+public final class DeviceContextSnapshot {
+    private static final String EXTRA_APP_EVENTS_INFO_FORMAT_VERSION = "a2";
+
+    private static final Object lock = new Object();
+    private static final AtomicBoolean receiverRegistered = new AtomicBoolean(false);
+    private static volatile int currentVersion = 0;
+    private static volatile DeviceContextSnapshot current;
+
+    private final int version;
+    private final String packageName;
+    private final int versionCode;
+    private final String versionName;
+    private final String locale;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final String screenDensity;
+    private final String extInfo;
+
+    private DeviceContextSnapshot(int version, Context appContext) {
+        this.version = version;
+
+        packageName = appContext.getPackageName();
+        int code = -1;
+        String name = "";
+        try {
+            PackageInfo pi = appContext.getPackageManager().getPackageInfo(packageName, 0);
+            code = pi.versionCode;
+            name = pi.versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            // Swallow
+        }
+        versionCode = code;
+        versionName = name;
+
+        Locale currentLocale;
+        try {
+            currentLocale = appContext.getResources().getConfiguration().locale;
+        } catch (Exception e) {
+            currentLocale = Locale.getDefault();
+        }
+        locale = currentLocale.getLanguage() + "_" + currentLocale.getCountry();
+
+        int width = 0;
+        int height = 0;
+        double density = 0;
+        try {
+            WindowManager wm = (WindowManager) appContext.getSystemService(Context.WINDOW_SERVICE);
+            if (wm != null) {
+                Display display = wm.getDefaultDisplay();
+                DisplayMetrics displayMetrics = new DisplayMetrics();
+                display.getMetrics(displayMetrics);
+                width = displayMetrics.widthPixels;
+                height = displayMetrics.heightPixels;
+                density = displayMetrics.density;
+            }
+        } catch (Exception e) {
+            // Swallow
+        }
+        screenWidth = width;
+        screenHeight = height;
+        screenDensity = new DecimalFormat("#.##").format(density);
+
+        extInfo = buildExtInfo();
+    }
+
+    /**
+     * Returns the current snapshot, building a new one if none was built yet or the device
+     * context changed since.
+     */
+    public static DeviceContextSnapshot getInstance(Context appContext) {
+        registerReceiver(appContext);
+        boolean refreshed = Utility.refreshPeriodicExtendedDeviceInfo(appContext);
+
+        synchronized (lock) {
+            if (refreshed) {
+                currentVersion++;
+            }
+            DeviceContextSnapshot snapshot = current;
+            if (snapshot == null || snapshot.version != currentVersion) {
+                snapshot = new DeviceContextSnapshot(currentVersion, appContext);
+                current = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Makes the next call to {@link #getInstance(Context)} build a new snapshot.
+     */
+    public static void invalidate() {
+        synchronized (lock) {
+            currentVersion++;
+        }
+    }
+
+    private static void registerReceiver(Context appContext) {
+        if (!receiverRegistered.compareAndSet(false, true)) {
+            return;
+        }
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_CONFIGURATION_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        try {
+            appContext.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    if (Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction())) {
+                        Utility.refreshTimezone();
+                    }
+                    invalidate();
+                }
+            }, filter);
+        } catch (Exception e) {
+            // Without the receiver the snapshot is still rebuilt by the periodic refresh.
+        }
+    }
+
+    private String buildExtInfo() {
+        JSONArray extraInfoArray = new JSONArray();
+        extraInfoArray.put(EXTRA_APP_EVENTS_INFO_FORMAT_VERSION);
+
+        // Application Manifest info:
+        extraInfoArray.put(packageName);
+        extraInfoArray.put(versionCode);
+        extraInfoArray.put(versionName);
+
+        // OS/Device info
+        extraInfoArray.put(Build.VERSION.RELEASE);
+        extraInfoArray.put(Build.MODEL);
+
+        // Locale
+        extraInfoArray.put(locale);
+
+        // Time zone
+        extraInfoArray.put(Utility.getDeviceTimezoneAbbreviation());
+
+        // Carrier
+        extraInfoArray.put(Utility.getCarrierName());
+
+        // Screen dimensions
+        extraInfoArray.put(screenWidth);
+        extraInfoArray.put(screenHeight);
+        extraInfoArray.put(screenDensity);
+
+        // CPU Cores
+        extraInfoArray.put(Utility.refreshBestGuessNumberOfCPUCores());
+
+        // External Storage
+        extraInfoArray.put(Utility.getTotalExternalStorageGB());
+        extraInfoArray.put(Utility.getAvailableExternalStorageGB());
+
+        extraInfoArray.put(Utility.getDeviceTimeZoneName());
+
+        return extraInfoArray.toString();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public int getVersionCode() {
+        return versionCode;
+    }
+
+    public String getVersionName() {
+        return versionName;
+    }
+
+    /**
+     * @return the locale as language_country, e.g. en_US
+     */
+    public String getLocale() {
+        return locale;
+    }
+
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+
+    public String getScreenDensity() {
+        return screenDensity;
+    }
+
+    /**
+     * @return the extinfo parameter of app event payloads, serialized once per snapshot
+     */
+    public String getExtInfo() {
+        return extInfo;
+    }
+}
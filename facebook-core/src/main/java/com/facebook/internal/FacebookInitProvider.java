@@ -9,6 +9,7 @@ import android.net.Uri;
 import android.util.Log;
 
 import com.facebook.FacebookSdk;
+import com.facebook.StartupTraceListener;
 
 public final class FacebookInitProvider extends ContentProvider {
     private static final String TAG = FacebookInitProvider.class.getSimpleName();
@@ -16,11 +17,13 @@ public final class FacebookInitProvider extends ContentProvider {
     @Override
     @SuppressWarnings("deprecation")
     public boolean onCreate() {
+        long startTimeNanos = StartupTrace.begin();
         try {
             FacebookSdk.sdkInitialize(getContext());
         } catch (Exception ex) {
             Log.i(TAG, "Failed to auto initialize the Facebook SDK", ex);
         }
+        StartupTrace.end(StartupTraceListener.SPAN_INIT_PROVIDER_CREATE, startTimeNanos);
         return false;
     }
 
@@ -21,8 +21,14 @@
 package com.facebook.internal;
 
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
@@ -33,6 +39,10 @@ import android.os.Build;
  * com.facebook.internal is solely for the use of other packages within the Facebook SDK for
  * Android. Use of any of the classes in this package is unsupported, and they may be modified or
  * removed without warning at any time.
+ *
+ * Validation results are cached per package. A cached result is dropped when the package is
+ * added, replaced, changed or removed; if the package broadcasts cannot be received, it is only
+ * trusted while the package's version code and last update time stay the same.
  */
 public class FacebookSignatureValidator {
 
@@ -46,6 +56,11 @@ public class FacebookSignatureValidator {
 
   private static final HashSet<String> validAppSignatureHashes = buildAppSignatureHashes();
 
+  private static final Map<String, ValidationResult> validationResults =
+      new ConcurrentHashMap<>();
+  private static final AtomicBoolean packageReceiverRegistered = new AtomicBoolean(false);
+  private static volatile boolean packageReceiverActive = false;
+
   private static HashSet<String> buildAppSignatureHashes() {
     HashSet<String> set = new HashSet<String>();
     set.add(FBR_HASH);
@@ -67,17 +82,33 @@ public class FacebookSignatureValidator {
       return true;
     }
 
-    PackageInfo packageInfo;
-    try {
-      packageInfo = context.getPackageManager().getPackageInfo(
-          packageName,
-          PackageManager.GET_SIGNATURES);
-    } catch (PackageManager.NameNotFoundException e) {
-      return false;
+    registerPackageReceiver(context);
+
+    ValidationResult cachedResult = validationResults.get(packageName);
+    if (cachedResult != null) {
+      if (packageReceiverActive) {
+        return cachedResult.isValid;
+      }
+      if (cachedResult.matches(getPackageInfo(context, packageName, 0))) {
+        return cachedResult.isValid;
+      }
     }
 
+    PackageInfo packageInfo = getPackageInfo(context, packageName, PackageManager.GET_SIGNATURES);
+    boolean isValid = hasValidSignatures(packageInfo);
+    validationResults.put(packageName, new ValidationResult(packageInfo, isValid));
+    return isValid;
+  }
+
+  static void clearCache() {
+    validationResults.clear();
+  }
+
+  private static boolean hasValidSignatures(PackageInfo packageInfo) {
     // just in case
-    if (packageInfo.signatures == null || packageInfo.signatures.length <= 0) {
+    if (packageInfo == null ||
+        packageInfo.signatures == null ||
+        packageInfo.signatures.length <= 0) {
       return false;
     }
 
@@ -90,4 +121,59 @@ public class FacebookSignatureValidator {
 
     return true;
   }
+
+  private static PackageInfo getPackageInfo(Context context, String packageName, int flags) {
+    try {
+      return context.getPackageManager().getPackageInfo(packageName, flags);
+    } catch (PackageManager.NameNotFoundException e) {
+      return null;
+    }
+  }
+
+  private static void registerPackageReceiver(Context context) {
+    Context applicationContext = context.getApplicationContext();
+    if (applicationContext == null || !packageReceiverRegistered.compareAndSet(false, true)) {
+      return;
+    }
+
+    IntentFilter filter = new IntentFilter();
+    filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+    filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+    filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+    filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+    filter.addDataScheme("package");
+    try {
+      applicationContext.registerReceiver(new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+          if (intent.getData() != null) {
+            validationResults.remove(intent.getData().getSchemeSpecificPart());
+          }
+        }
+      }, filter);
+      packageReceiverActive = true;
+    } catch (Exception e) {
+      // Cached results are then checked against the package's last update time.
+    }
+  }
+
+  private static class ValidationResult {
+    private final long lastUpdateTime;
+    private final int versionCode;
+    private final boolean isValid;
+
+    ValidationResult(PackageInfo packageInfo, boolean isValid) {
+      this.lastUpdateTime = packageInfo != null ? packageInfo.lastUpdateTime : -1;
+      this.versionCode = packageInfo != null ? packageInfo.versionCode : -1;
+      this.isValid = isValid;
+    }
+
+    boolean matches(PackageInfo packageInfo) {
+      if (packageInfo == null) {
+        return lastUpdateTime == -1 && versionCode == -1;
+      }
+      return packageInfo.lastUpdateTime == lastUpdateTime &&
+          packageInfo.versionCode == versionCode;
+    }
+  }
 }
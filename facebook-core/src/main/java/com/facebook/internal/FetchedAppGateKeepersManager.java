@@ -164,7 +164,7 @@ public class FetchedAppGateKeepersManager {
         request.setSkipClientToken(true);
         request.setParameters(appGateKeepersParams);
 
-        return request.executeAndWait().getJSONObject();
+        return GraphRequestCoalescer.executeAndWait(request).getJSONObject();
     }
 
     private synchronized static JSONObject parseAppGateKeepersFromJSON(
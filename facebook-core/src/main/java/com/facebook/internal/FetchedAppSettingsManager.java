@@ -36,6 +36,7 @@ import android.util.Log;
 
 import com.facebook.FacebookSdk;
 import com.facebook.GraphRequest;
+import com.facebook.StartupTraceListener;
 import com.facebook.appevents.RestrictiveParameterManager;
 import com.facebook.appevents.codeless.internal.UnityReflection;
 import com.facebook.appevents.internal.AutomaticAnalyticsLogger;
@@ -169,13 +170,23 @@ public final class FetchedAppSettingsManager {
                         Utility.logd(Utility.LOG_TAG, je);
                     }
                     if (settingsJSON != null) {
+                        long parseStartTimeNanos = StartupTrace.begin();
                         appSettings = parseAppSettingsFromJSON(applicationId, settingsJSON);
+                        StartupTrace.end(
+                                StartupTraceListener.SPAN_APP_SETTINGS_PARSE,
+                                parseStartTimeNanos);
                     }
                 }
 
+                long fetchStartTimeNanos = StartupTrace.begin();
                 JSONObject resultJSON = getAppSettingsQueryResponse(applicationId);
+                StartupTrace.end(StartupTraceListener.SPAN_APP_SETTINGS_FETCH, fetchStartTimeNanos);
                 if (resultJSON != null) {
+                    long parseStartTimeNanos = StartupTrace.begin();
                     parseAppSettingsFromJSON(applicationId, resultJSON);
+                    StartupTrace.end(
+                            StartupTraceListener.SPAN_APP_SETTINGS_PARSE,
+                            parseStartTimeNanos);
 
                     sharedPrefs.edit()
                             .putString(settingsKey, resultJSON.toString())
@@ -368,7 +379,7 @@ public final class FetchedAppSettingsManager {
         request.setSkipClientToken(true);
         request.setParameters(appSettingsParams);
 
-        return request.executeAndWait().getJSONObject();
+        return GraphRequestCoalescer.executeAndWait(request).getJSONObject();
     }
 
     private static Map<String, Map<String, FetchedAppSettings.DialogFeatureConfig>> parseDialogConfigurations(
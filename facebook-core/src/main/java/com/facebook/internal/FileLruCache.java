@@ -31,8 +31,13 @@ import org.json.JSONTokener;
 
 import java.io.*;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.PriorityQueue;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 // This class is intended to be thread-safe.
@@ -58,6 +63,12 @@ import java.util.concurrent.atomic.AtomicLong;
 // the corresponding file has been deleted.  Given this and that cache files never change other than
 // deleting in trim() or clear(),  we only have to ensure that there is at most one trim() or
 // clear() process deleting files at any given time.
+//
+// The size and LRU order of the cache files is tracked in an in-memory index guarded by lock. The
+// index is built from a single directory scan the first time it is needed, ordered by the files'
+// last modified times, which get() keeps up to date and which therefore persist the LRU order
+// across runs. After that, puts, gets and evictions update the index and its byte and file
+// counts incrementally, so trim() never has to list the directory again.
 
 /**
  * com.facebook.internal is solely for the use of other packages within the Facebook SDK for
@@ -79,6 +90,10 @@ public final class FileLruCache {
     private final Object lock;
     private AtomicLong lastClearCacheTime = new AtomicLong(0);
 
+    // Cache file name to file size, eldest access first. Only access while holding lock.
+    private LinkedHashMap<String, Long> index;
+    private long indexedByteCount;
+
     // The value of tag should be a final String that works as a directory name.
     public FileLruCache(String tag, Limits limits) {
         this.tag = tag;
@@ -100,15 +115,7 @@ public final class FileLruCache {
     //
     // Also, since trim() runs asynchronously now, this blocks until any pending trim has completed.
     long sizeInBytesForTest() {
-        synchronized (lock) {
-            while (isTrimPending || isTrimInProgress) {
-                try {
-                    lock.wait();
-                } catch (InterruptedException e) {
-                    // intentional no-op
-                }
-            }
-        }
+        waitForTrimForTest();
 
         File[] files = this.directory.listFiles();
         long total = 0;
@@ -120,6 +127,19 @@ public final class FileLruCache {
         return total;
     }
 
+    // Blocks until any pending trim has completed. Only for test and benchmark code.
+    void waitForTrimForTest() {
+        synchronized (lock) {
+            while (isTrimPending || isTrimInProgress) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // intentional no-op
+                }
+            }
+        }
+    }
+
     public InputStream get(String key) throws IOException {
         return get(key, null);
     }
@@ -131,6 +151,9 @@ public final class FileLruCache {
         try {
             input = new FileInputStream(file);
         } catch (IOException e) {
+            synchronized (lock) {
+                removeFromIndex(file.getName());
+            }
             return null;
         }
 
@@ -163,6 +186,9 @@ public final class FileLruCache {
                     "Setting lastModified to " + Long.valueOf(accessTime) + " for " +
                             file.getName());
             file.setLastModified(accessTime);
+            synchronized (lock) {
+                touchIndex(file.getName());
+            }
 
             success = true;
             return buffered;
@@ -247,6 +273,12 @@ public final class FileLruCache {
         // get the current directory listing of files to delete
         final File[] filesToDelete = directory.listFiles(BufferFile.excludeBufferFiles());
         lastClearCacheTime.set(System.currentTimeMillis());
+        synchronized (lock) {
+            if (index != null) {
+                index.clear();
+                indexedByteCount = 0;
+            }
+        }
         if (filesToDelete != null) {
             FacebookSdk.getExecutor().execute(new Runnable() {
                 @Override
@@ -278,6 +310,12 @@ public final class FileLruCache {
         // operation seems worth this cost.
         if (!buffer.renameTo(target)) {
             buffer.delete();
+            return;
+        }
+
+        long size = target.length();
+        synchronized (lock) {
+            addToIndex(target.getName(), size);
         }
 
         postTrim();
@@ -297,7 +335,7 @@ public final class FileLruCache {
 
     private void postTrim() {
         synchronized (lock) {
-            if (!isTrimPending) {
+            if (!isTrimPending && isOverLimits()) {
                 isTrimPending = true;
                 FacebookSdk.getExecutor().execute(new Runnable() {
                     @Override
@@ -310,36 +348,25 @@ public final class FileLruCache {
     }
 
     private void trim() {
+        List<File> filesToDelete = new ArrayList<File>();
         synchronized (lock) {
             isTrimPending = false;
             isTrimInProgress = true;
         }
         try {
             Logger.log(LoggingBehavior.CACHE, TAG, "trim started");
-            PriorityQueue<ModifiedFile> heap = new PriorityQueue<ModifiedFile>();
-            long size = 0;
-            long count = 0;
-            File[] filesToTrim =this.directory.listFiles(BufferFile.excludeBufferFiles());
-            if (filesToTrim != null) {
-                for (File file : filesToTrim) {
-                    ModifiedFile modified = new ModifiedFile(file);
-                    heap.add(modified);
-                    Logger.log(
-                            LoggingBehavior.CACHE,
-                            TAG,
-                            "  trim considering time=" + Long.valueOf(modified.getModified()) +
-                                    " name=" + modified.getFile().getName());
-
-                    size += file.length();
-                    count++;
+            synchronized (lock) {
+                Iterator<Map.Entry<String, Long>> eldest = getIndex().entrySet().iterator();
+                while (isOverLimits() && eldest.hasNext()) {
+                    Map.Entry<String, Long> entry = eldest.next();
+                    Logger.log(LoggingBehavior.CACHE, TAG, "  trim removing " + entry.getKey());
+                    indexedByteCount -= entry.getValue();
+                    eldest.remove();
+                    filesToDelete.add(new File(directory, entry.getKey()));
                 }
             }
 
-            while ((size > limits.getByteCount()) || (count > limits.getFileCount())) {
-                File file = heap.remove().getFile();
-                Logger.log(LoggingBehavior.CACHE, TAG, "  trim removing " + file.getName());
-                size -= file.length();
-                count--;
+            for (File file : filesToDelete) {
                 file.delete();
             }
         } finally {
@@ -350,6 +377,62 @@ public final class FileLruCache {
         }
     }
 
+    // Must be called while holding lock.
+    private LinkedHashMap<String, Long> getIndex() {
+        if (index == null) {
+            index = new LinkedHashMap<String, Long>(16, 0.75f, true);
+            indexedByteCount = 0;
+
+            File[] files = this.directory.listFiles(BufferFile.excludeBufferFiles());
+            if (files != null) {
+                ModifiedFile[] modifiedFiles = new ModifiedFile[files.length];
+                for (int i = 0; i < files.length; i++) {
+                    modifiedFiles[i] = new ModifiedFile(files[i]);
+                }
+                Arrays.sort(modifiedFiles);
+                for (ModifiedFile modified : modifiedFiles) {
+                    long size = modified.getFile().length();
+                    index.put(modified.getFile().getName(), size);
+                    indexedByteCount += size;
+                }
+            }
+            Logger.log(
+                    LoggingBehavior.CACHE,
+                    TAG,
+                    "index loaded with " + index.size() + " files, " + indexedByteCount + " bytes");
+        }
+        return index;
+    }
+
+    // Must be called while holding lock.
+    private void addToIndex(String name, long size) {
+        Long previousSize = getIndex().put(name, size);
+        if (previousSize != null) {
+            indexedByteCount -= previousSize;
+        }
+        indexedByteCount += size;
+    }
+
+    // Must be called while holding lock.
+    private void touchIndex(String name) {
+        // An access ordered LinkedHashMap moves the entry to the end on get.
+        getIndex().get(name);
+    }
+
+    // Must be called while holding lock.
+    private void removeFromIndex(String name) {
+        Long size = getIndex().remove(name);
+        if (size != null) {
+            indexedByteCount -= size;
+        }
+    }
+
+    // Must be called while holding lock.
+    private boolean isOverLimits() {
+        return indexedByteCount > limits.getByteCount()
+                || getIndex().size() > limits.getFileCount();
+    }
+
     private static class BufferFile {
         private static final String FILE_NAME_PREFIX = "buffer";
         private static final FilenameFilter filterExcludeBufferFiles = new FilenameFilter() {
@@ -634,7 +717,7 @@ public final class FileLruCache {
         }
     }
 
-    // Caches the result of lastModified during sort/heap operations
+    // Caches the result of lastModified while sorting files to build the index
     private final static class ModifiedFile implements Comparable<ModifiedFile> {
         private static final int HASH_SEED = 29; // Some random prime number
         private static final int HASH_MULTIPLIER = 37; // Some random prime number
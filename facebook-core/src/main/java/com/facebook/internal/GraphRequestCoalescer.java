@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import com.facebook.FacebookSdk;
+import com.facebook.GraphRequest;
+import com.facebook.GraphRequestBatch;
+import com.facebook.GraphResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * com.facebook.internal is solely for the use of other packages within the
+ * Facebook SDK for Android. Use of any of the classes in this package is
+ * unsupported, and they may be modified or removed without warning at any time.
+ *
+ * Collects independent Graph requests made within a short window and sends them as one
+ * {@link GraphRequestBatch} of up to {@link GraphRequest#MAXIMUM_BATCH_SIZE} requests. Each
+ * request still gets its own response and callback. Batches are sent one at a time from a
+ * dedicated thread, so callers blocked on their response never wait for a thread they occupy, and
+ * at background priority, as the SDK only coalesces its own settings fetches.
+ */
+public class GraphRequestCoalescer {
+    public static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    private static GraphRequestCoalescer instance;
+
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+
+    private List<Entry> pendingEntries = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            List<Entry> entries;
+            synchronized (lock) {
+                entries = pendingEntries;
+                pendingEntries = new ArrayList<>();
+                scheduledFlush = null;
+            }
+            send(entries);
+        }
+    };
+
+    /**
+     * Executes the request at background priority and blocks until its response is available.
+     * If {@link FacebookSdk#isGraphRequestCoalescingEnabled()}, the request is sent in a batch
+     * with others from the coalescer's thread; otherwise it is sent on its own from an SDK
+     * thread. Either way its callback runs on the thread that sends it, not the calling thread.
+     * Should only be called off the UI thread.
+     */
+    public static GraphResponse executeAndWait(GraphRequest request) {
+        if (!FacebookSdk.isGraphRequestCoalescingEnabled()) {
+            GraphRequestBatch batch = new GraphRequestBatch(request);
+            batch.setBackgroundPriority(true);
+            return batch.executeAndWait().get(0);
+        }
+        return getInstance().enqueueAndWait(request);
+    }
+
+    public static synchronized GraphRequestCoalescer getInstance() {
+        if (instance == null) {
+            instance = new GraphRequestCoalescer(
+                    DEFAULT_WINDOW_MILLIS,
+                    Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            // Never keep the process alive just to send a batch.
+                            Thread thread =
+                                    new Thread(runnable, "FacebookSdk-GraphRequestCoalescer");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }));
+        }
+        return instance;
+    }
+
+    GraphRequestCoalescer(long windowMillis, ScheduledExecutorService scheduler) {
+        this.windowMillis = windowMillis;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues the request for the next batch. Its callback is called on an SDK thread.
+     */
+    public void enqueue(GraphRequest request) {
+        add(new Entry(request));
+    }
+
+    /**
+     * Queues the request for the next batch and blocks until its response is available.
+     */
+    public GraphResponse enqueueAndWait(GraphRequest request) {
+        Entry entry = new Entry(request);
+        add(entry);
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                entry.done.await();
+                break;
+            } catch (InterruptedException e) {
+                // The request is on its way; keep waiting and restore the interrupt afterwards.
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (entry.error != null) {
+            throw entry.error;
+        }
+        return entry.response;
+    }
+
+    /**
+     * Sends the requests queued so far without waiting for the window to close.
+     */
+    public void flush() {
+        synchronized (lock) {
+            sendPendingEntries();
+        }
+    }
+
+    private void add(Entry entry) {
+        synchronized (lock) {
+            pendingEntries.add(entry);
+            if (pendingEntries.size() >= GraphRequest.MAXIMUM_BATCH_SIZE) {
+                sendPendingEntries();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(
+                        flushRunnable, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Must be called holding the lock.
+    private void sendPendingEntries() {
+        if (pendingEntries.isEmpty()) {
+            return;
+        }
+        final List<Entry> entries = pendingEntries;
+        pendingEntries = new ArrayList<>();
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                send(entries);
+            }
+        });
+    }
+
+    private void send(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            // A batch of one is sent as a plain request.
+            GraphRequestBatch batch = new GraphRequestBatch();
+            for (Entry entry : entries) {
+                batch.add(entry.request);
+            }
+            batch.setBackgroundPriority(true);
+            List<GraphResponse> responses = executeBatch(batch);
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).response = responses.get(i);
+            }
+        } catch (RuntimeException e) {
+            // Surface the failure to every caller, as a direct executeAndWait would have.
+            for (Entry entry : entries) {
+                entry.error = e;
+            }
+        } finally {
+            for (Entry entry : entries) {
+                entry.done.countDown();
+            }
+        }
+    }
+
+    List<GraphResponse> executeBatch(GraphRequestBatch batch) {
+        return batch.executeAndWait();
+    }
+
+    private static class Entry {
+        final GraphRequest request;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile GraphResponse response;
+        volatile RuntimeException error;
+
+        Entry(GraphRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -67,6 +67,16 @@ public class ImageDownloader {
         // requests object reference. So we keep the old references and just map them to new urls in
         // the downloader.
         RequestKey key = new RequestKey(request.getImageUri(), request.getCallerTag());
+
+        // An already decoded bitmap avoids both the disk cache read and the decode.
+        ImageMemoryCache.Entry cachedEntry = ImageMemoryCache.get(
+                request.getImageUri(),
+                request.isCachedRedirectAllowed());
+        if (cachedEntry != null) {
+            postResponse(request, null, cachedEntry.bitmap, cachedEntry.isCachedRedirect);
+            return;
+        }
+
         synchronized (pendingRequests) {
             DownloaderContext downloaderContext = pendingRequests.get(key);
             if (downloaderContext != null) {
@@ -117,6 +127,7 @@ public class ImageDownloader {
     public static void clearCache(Context context) {
         ImageResponseCache.clearCache(context);
         UrlRedirectCache.clearCache();
+        ImageMemoryCache.clearCache();
     }
 
     private static void enqueueCacheRead(
@@ -168,22 +179,43 @@ public class ImageDownloader {
         // Once the old downloader context is removed, we are thread-safe since this is the
         // only reference to it
         DownloaderContext completedRequestContext = removePendingRequest(key);
-        if (completedRequestContext != null && !completedRequestContext.isCancelled) {
-            final ImageRequest request = completedRequestContext.request;
-            final ImageRequest.Callback callback = request.getCallback();
-            if (callback != null) {
-                getHandler().post(new Runnable() {
-                    @Override
-                    public void run() {
-                        ImageResponse response = new ImageResponse(
-                                request,
-                                error,
-                                isCachedRedirect,
-                                bitmap);
-                        callback.onCompleted(response);
-                    }
-                });
-            }
+        if (completedRequestContext == null) {
+            return;
+        }
+
+        final ImageRequest request = completedRequestContext.request;
+        if (error == null && bitmap != null) {
+            // Remember whether the bitmap was reached through a redirect, so that requests which
+            // do not allow cached redirects don't get it from memory either.
+            ImageMemoryCache.put(
+                    request.getImageUri(),
+                    bitmap,
+                    isCachedRedirect || !key.uri.equals(request.getImageUri()));
+        }
+
+        if (!completedRequestContext.isCancelled) {
+            postResponse(request, error, bitmap, isCachedRedirect);
+        }
+    }
+
+    private static void postResponse(
+            final ImageRequest request,
+            final Exception error,
+            final Bitmap bitmap,
+            final boolean isCachedRedirect) {
+        final ImageRequest.Callback callback = request.getCallback();
+        if (callback != null) {
+            getHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    ImageResponse response = new ImageResponse(
+                            request,
+                            error,
+                            isCachedRedirect,
+                            bitmap);
+                    callback.onCompleted(response);
+                }
+            });
         }
     }
 
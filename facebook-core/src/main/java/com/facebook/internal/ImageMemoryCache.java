@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.LruCache;
+
+/**
+ * com.facebook.internal is solely for the use of other packages within the
+ * Facebook SDK for Android. Use of any of the classes in this package is
+ * unsupported, and they may be modified or removed without warning at any time.
+ *
+ * In-memory LRU of decoded bitmaps, consulted by {@link ImageDownloader} before it goes to the
+ * disk backed {@link ImageResponseCache}. Entries are keyed by the requested image Uri, which for
+ * profile pictures already carries the requested width and height, and the cache is bounded by
+ * the total byte size of the bitmaps it holds.
+ */
+public class ImageMemoryCache {
+    // Keep the SDK's share of the heap modest, the host app owns the rest.
+    private static final int MAX_HEAP_FRACTION = 16;
+
+    private static LruCache<String, Entry> cache;
+
+    static class Entry {
+        final Bitmap bitmap;
+        final boolean isCachedRedirect;
+
+        Entry(Bitmap bitmap, boolean isCachedRedirect) {
+            this.bitmap = bitmap;
+            this.isCachedRedirect = isCachedRedirect;
+        }
+    }
+
+    private synchronized static LruCache<String, Entry> getCache() {
+        if (cache == null) {
+            long maxBytes = Runtime.getRuntime().maxMemory() / MAX_HEAP_FRACTION;
+            cache = new LruCache<String, Entry>((int) Math.min(maxBytes, Integer.MAX_VALUE)) {
+                @Override
+                protected int sizeOf(String key, Entry entry) {
+                    return entry.bitmap.getByteCount();
+                }
+            };
+        }
+        return cache;
+    }
+
+    static Entry get(Uri uri, boolean allowCachedRedirects) {
+        if (uri == null) {
+            return null;
+        }
+
+        Entry entry = getCache().get(uri.toString());
+        if (entry == null || entry.bitmap.isRecycled()) {
+            return null;
+        }
+        if (entry.isCachedRedirect && !allowCachedRedirects) {
+            return null;
+        }
+        return entry;
+    }
+
+    static void put(Uri uri, Bitmap bitmap, boolean isCachedRedirect) {
+        if (uri == null || bitmap == null) {
+            return;
+        }
+        getCache().put(uri.toString(), new Entry(bitmap, isCachedRedirect));
+    }
+
+    static void clearCache() {
+        getCache().evictAll();
+    }
+
+    /**
+     * @return the number of lookups that returned a bitmap
+     */
+    public static int getHitCount() {
+        return getCache().hitCount();
+    }
+
+    /**
+     * @return the number of lookups that found no bitmap
+     */
+    public static int getMissCount() {
+        return getCache().missCount();
+    }
+
+    /**
+     * @return the number of bitmaps evicted to stay within the size limit
+     */
+    public static int getEvictionCount() {
+        return getCache().evictionCount();
+    }
+
+    /**
+     * @return the total byte size of the cached bitmaps
+     */
+    public static int getSizeInBytes() {
+        return getCache().size();
+    }
+
+    /**
+     * @return the maximum total byte size of the cached bitmaps
+     */
+    public static int getMaxSizeInBytes() {
+        return getCache().maxSize();
+    }
+}
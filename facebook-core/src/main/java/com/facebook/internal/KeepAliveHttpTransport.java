@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * com.facebook.internal is solely for the use of other packages within the
+ * Facebook SDK for Android. Use of any of the classes in this package is
+ * unsupported, and they may be modified or removed without warning at any time.
+ *
+ * An {@link HttpTransport} that lets the platform keep HTTP/1.1 connections alive between
+ * requests.
+ *
+ * The platform's HttpURLConnection pools the sockets itself. It reuses a socket only if the
+ * previous response was read to the end, its stream closed and the connection not disconnected.
+ * This transport releases reusable connections that way, reading whatever is left of the response
+ * body, and disconnects only the connections that cannot be reused.
+ */
+public class KeepAliveHttpTransport implements HttpTransport {
+    @Override
+    public HttpURLConnection openConnection(URL url) throws IOException {
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    @Override
+    public void releaseConnection(HttpURLConnection connection, boolean reusable) {
+        if (connection == null) {
+            return;
+        }
+        if (!reusable) {
+            Utility.disconnectQuietly(connection);
+            return;
+        }
+        drainQuietly(connection);
+    }
+
+    private static void drainQuietly(HttpURLConnection connection) {
+        InputStream stream = null;
+        try {
+            stream = connection.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream()
+                    : connection.getInputStream();
+            if (stream != null) {
+                byte[] buffer = new byte[Utility.DEFAULT_STREAM_BUFFER_SIZE];
+                while (stream.read(buffer) != -1) {
+                    // Discard the rest of the body so the socket can serve the next request.
+                }
+            }
+        } catch (Exception e) {
+            // The stream was already read and closed, or the socket went away. Either way the
+            // platform decides on its own whether the socket can be reused.
+        } finally {
+            Utility.closeQuietly(stream);
+        }
+    }
+}
@@ -20,15 +20,18 @@
 
 package com.facebook.internal;
 
+import android.content.BroadcastReceiver;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.content.pm.ResolveInfo;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Looper;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
@@ -41,6 +44,7 @@ import com.facebook.login.DefaultAudience;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -273,19 +277,13 @@ public final class NativeProtocol {
         abstract protected String getPackage();
         abstract protected String getLoginActivity();
 
-        private TreeSet<Integer> availableVersions;
-
+        /**
+         * @return the protocol versions supported by the installed app, shared with other
+         * callers and must not be modified
+         */
         public TreeSet<Integer> getAvailableVersions() {
-            if (availableVersions == null || availableVersions.size() == 0) {
-                fetchAvailableVersions(false);
-            }
-            return availableVersions;
-        }
-
-        private synchronized void fetchAvailableVersions(boolean force) {
-            if (force || availableVersions == null || availableVersions.size() == 0) {
-                availableVersions = fetchAllAvailableProtocolVersionsForAppInfo(this);
-            }
+            TreeSet<Integer> availableVersions = getAvailableVersionsByPackage().get(getPackage());
+            return availableVersions != null ? availableVersions : NO_AVAILABLE_VERSIONS;
         }
     }
 
@@ -367,6 +365,18 @@ public final class NativeProtocol {
     private static final Map<String, List<NativeAppInfo>> actionToAppInfoMap =
         buildActionToAppInfoMap();
     private static final AtomicBoolean protocolVersionsAsyncUpdating = new AtomicBoolean(false);
+    private static final AtomicBoolean protocolVersionsUpdateRequested = new AtomicBoolean(false);
+
+    // The protocol versions of every native app, by package. The table is built off the main
+    // thread when the SDK is initialized and whenever one of the apps is installed, updated or
+    // removed, and swapped in whole, so availability checks never query the apps' providers.
+    // Until the first build completes, checks made on the main thread report no native app, and
+    // checks made on other threads build the table or wait for the build in progress.
+    private static final TreeSet<Integer> NO_AVAILABLE_VERSIONS = new TreeSet<>();
+    private static final Object availableVersionsLock = new Object();
+    private static volatile Map<String, TreeSet<Integer>> availableVersionsByPackage;
+    private static final AtomicBoolean packageReceiverRegistered = new AtomicBoolean(false);
+    private static volatile boolean packageReceiverActive = false;
 
     private static List<NativeAppInfo> buildFacebookAppList() {
         List<NativeAppInfo> list = new ArrayList<NativeAppInfo>();
@@ -841,14 +851,16 @@ public final class NativeProtocol {
     private static ProtocolVersionQueryResult getLatestAvailableProtocolVersionForAppInfoList(
         List<NativeAppInfo> appInfoList,
         int[] versionSpec) {
-        // Kick off an update
-        updateAllAvailableProtocolVersionsAsync();
+        // Without the package receiver there is no telling when an app was updated, so kick off
+        // an update
+        if (!packageReceiverActive) {
+            updateAllAvailableProtocolVersionsAsync();
+        }
 
         if (appInfoList == null) {
             return ProtocolVersionQueryResult.createEmpty();
         }
 
-        // Could potentially cache the NativeAppInfo to latestProtocolVersion
         for (NativeAppInfo appInfo : appInfoList) {
             int protocolVersion =
                 computeLatestAvailableVersionFromVersionSpec(
@@ -865,6 +877,8 @@ public final class NativeProtocol {
     }
 
     public static void updateAllAvailableProtocolVersionsAsync() {
+        registerPackageReceiver();
+        protocolVersionsUpdateRequested.set(true);
         if (!protocolVersionsAsyncUpdating.compareAndSet(false, true)) {
             return;
         }
@@ -873,16 +887,101 @@ public final class NativeProtocol {
             @Override
             public void run() {
                 try {
-                    for (NativeAppInfo appInfo : facebookAppInfoList) {
-                        appInfo.fetchAvailableVersions(true);
+                    while (protocolVersionsUpdateRequested.getAndSet(false)) {
+                        synchronized (availableVersionsLock) {
+                            buildAvailableVersionsByPackage();
+                        }
                     }
                 } finally {
                     protocolVersionsAsyncUpdating.set(false);
                 }
+                // An update requested while this one was finishing would otherwise be lost.
+                if (protocolVersionsUpdateRequested.get()) {
+                    updateAllAvailableProtocolVersionsAsync();
+                }
             }
         });
     }
 
+    /**
+     * Fetches the available protocol versions from the apps on the device on the calling thread.
+     * Must not be called on the main thread.
+     */
+    public static void updateAllAvailableProtocolVersions() {
+        registerPackageReceiver();
+        synchronized (availableVersionsLock) {
+            buildAvailableVersionsByPackage();
+        }
+    }
+
+    private static Map<String, TreeSet<Integer>> getAvailableVersionsByPackage() {
+        Map<String, TreeSet<Integer>> table = availableVersionsByPackage;
+        if (table == null) {
+            // Only the checks made before the first update completes get here. Querying every
+            // app's provider could freeze the main thread, so there it is a deliberate trade-off
+            // to report no native app and fall back to the web until the table is built.
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                updateAllAvailableProtocolVersionsAsync();
+                return Collections.emptyMap();
+            }
+            synchronized (availableVersionsLock) {
+                if (availableVersionsByPackage == null) {
+                    buildAvailableVersionsByPackage();
+                }
+                table = availableVersionsByPackage;
+            }
+        }
+        return table;
+    }
+
+    // Must be called with availableVersionsLock held.
+    private static void buildAvailableVersionsByPackage() {
+        List<NativeAppInfo> appInfoList = new ArrayList<>(facebookAppInfoList);
+        for (List<NativeAppInfo> actionAppInfoList : actionToAppInfoMap.values()) {
+            appInfoList.addAll(actionAppInfoList);
+        }
+
+        Map<String, TreeSet<Integer>> table = new HashMap<>();
+        for (NativeAppInfo appInfo : appInfoList) {
+            if (!table.containsKey(appInfo.getPackage())) {
+                table.put(
+                    appInfo.getPackage(),
+                    fetchAllAvailableProtocolVersionsForAppInfo(appInfo));
+            }
+        }
+        availableVersionsByPackage = Collections.unmodifiableMap(table);
+    }
+
+    private static void registerPackageReceiver() {
+        if (!packageReceiverRegistered.compareAndSet(false, true)) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        try {
+            FacebookSdk.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    Map<String, TreeSet<Integer>> table = availableVersionsByPackage;
+                    Uri data = intent.getData();
+                    if (table != null &&
+                        data != null &&
+                        table.containsKey(data.getSchemeSpecificPart())) {
+                        updateAllAvailableProtocolVersionsAsync();
+                    }
+                }
+            }, filter);
+            packageReceiverActive = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to register the package receiver.", e);
+        }
+    }
+
     private static TreeSet<Integer> fetchAllAvailableProtocolVersionsForAppInfo(
         NativeAppInfo appInfo) {
         TreeSet<Integer> allAvailableVersions = new TreeSet<>();
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.util.Log;
+
+import com.facebook.StartupTraceListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * com.facebook.internal is solely for the use of other packages within the
+ * Facebook SDK for Android. Use of any of the classes in this package is
+ * unsupported, and they may be modified or removed without warning at any time.
+ *
+ * Runs the stages of SDK startup on an executor. Each stage starts as soon as the stages it
+ * depends on have finished, so independent stages run in parallel. A stage that throws is logged
+ * and counts as finished, so it never holds back the stages after it.
+ */
+public class StartupScheduler {
+    private static final String TAG = StartupScheduler.class.getCanonicalName();
+
+    /**
+     * A stage that finishes asynchronously, e.g. once a request it started has completed.
+     */
+    public interface AsyncStageTask {
+        /**
+         * Starts the stage.
+         *
+         * @param onFinished to be run once the stage has finished, on any thread
+         */
+        void start(Runnable onFinished);
+    }
+
+    private final Executor executor;
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private boolean started;
+
+    public StartupScheduler(Executor executor) {
+        Validate.notNull(executor, "executor");
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a stage that has finished once the task returns. The dependencies must have been
+     * added before.
+     */
+    public void addStage(String name, final Runnable task, String... dependencies) {
+        addAsyncStage(name, new AsyncStageTask() {
+            @Override
+            public void start(Runnable onFinished) {
+                try {
+                    task.run();
+                } finally {
+                    onFinished.run();
+                }
+            }
+        }, dependencies);
+    }
+
+    /**
+     * Adds a stage that has finished once it runs the callback passed to
+     * {@link AsyncStageTask#start(Runnable)}. The dependencies must have been added before.
+     */
+    public synchronized void addAsyncStage(
+            String name,
+            AsyncStageTask task,
+            String... dependencies) {
+        Validate.notNullOrEmpty(name, "name");
+        Validate.notNull(task, "task");
+        if (started) {
+            throw new IllegalStateException("Stages must be added before the scheduler starts");
+        }
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup stage: " + name);
+        }
+
+        Stage stage = new Stage(name, task);
+        for (String dependency : dependencies) {
+            Stage dependencyStage = stages.get(dependency);
+            if (dependencyStage == null) {
+                throw new IllegalArgumentException(
+                        "Unknown dependency " + dependency + " of startup stage " + name);
+            }
+            dependencyStage.dependents.add(stage);
+            stage.remainingDependencies++;
+        }
+        stages.put(name, stage);
+    }
+
+    /**
+     * Starts the stages that have no dependencies. Does nothing if already started.
+     */
+    public void start() {
+        List<Stage> readyStages = new ArrayList<>();
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            started = true;
+            for (Stage stage : stages.values()) {
+                if (stage.remainingDependencies == 0) {
+                    readyStages.add(stage);
+                }
+            }
+        }
+        for (Stage stage : readyStages) {
+            dispatch(stage);
+        }
+    }
+
+    public boolean isFinished(String name) {
+        return getStage(name).finishedLatch.getCount() == 0;
+    }
+
+    /**
+     * Waits for a stage to finish.
+     *
+     * @return true if the stage finished, false if the timeout elapsed first
+     */
+    public boolean awaitFinished(String name, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return getStage(name).finishedLatch.await(timeout, unit);
+    }
+
+    /**
+     * @return how long each finished stage ran, in milliseconds, in the order the stages were
+     * added
+     */
+    public synchronized Map<String, Long> getStageDurationsMillis() {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (Stage stage : stages.values()) {
+            if (stage.durationNanos >= 0) {
+                durations.put(
+                        stage.name,
+                        TimeUnit.NANOSECONDS.toMillis(stage.durationNanos));
+            }
+        }
+        return Collections.unmodifiableMap(durations);
+    }
+
+    private synchronized Stage getStage(String name) {
+        Stage stage = stages.get(name);
+        if (stage == null) {
+            throw new IllegalArgumentException("Unknown startup stage: " + name);
+        }
+        return stage;
+    }
+
+    private void dispatch(final Stage stage) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runStage(stage);
+            }
+        });
+    }
+
+    private void runStage(final Stage stage) {
+        synchronized (this) {
+            stage.startNanos = System.nanoTime();
+        }
+
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        Runnable onFinished = new Runnable() {
+            @Override
+            public void run() {
+                if (finished.compareAndSet(false, true)) {
+                    finishStage(stage);
+                }
+            }
+        };
+        try {
+            stage.task.start(onFinished);
+        } catch (Exception e) {
+            Log.w(TAG, "Startup stage " + stage.name + " failed", e);
+            onFinished.run();
+        }
+    }
+
+    private void finishStage(Stage stage) {
+        List<Stage> readyStages = new ArrayList<>();
+        long startNanos;
+        synchronized (this) {
+            startNanos = stage.startNanos;
+            stage.durationNanos = System.nanoTime() - startNanos;
+            for (Stage dependent : stage.dependents) {
+                dependent.remainingDependencies--;
+                if (dependent.remainingDependencies == 0) {
+                    readyStages.add(dependent);
+                }
+            }
+        }
+        StartupTrace.end(StartupTraceListener.SPAN_STARTUP_STAGE_PREFIX + stage.name, startNanos);
+        stage.finishedLatch.countDown();
+        for (Stage dependent : readyStages) {
+            dispatch(dependent);
+        }
+    }
+
+    private static class Stage {
+        private final String name;
+        private final AsyncStageTask task;
+        private final List<Stage> dependents = new ArrayList<>();
+        private final CountDownLatch finishedLatch = new CountDownLatch(1);
+        private int remainingDependencies;
+        private long startNanos;
+        private long durationNanos = -1;
+
+        Stage(String name, AsyncStageTask task) {
+            this.name = name;
+            this.task = task;
+        }
+    }
+}
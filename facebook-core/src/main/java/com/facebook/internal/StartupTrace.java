@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.util.Log;
+
+import com.facebook.StartupTraceListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * com.facebook.internal is solely for the use of other packages within the
+ * Facebook SDK for Android. Use of any of the classes in this package is
+ * unsupported, and they may be modified or removed without warning at any time.
+ *
+ * Reports the spans of SDK startup to the registered {@link StartupTraceListener}. Startup
+ * usually runs before the host had a chance to register a listener, so until one is registered
+ * the first spans are kept and handed to it once it is.
+ */
+public final class StartupTrace {
+    private static final String TAG = StartupTrace.class.getCanonicalName();
+    private static final int MAX_PENDING_SPANS = 64;
+
+    private static final Object lock = new Object();
+    private static StartupTraceListener listener;
+    private static final List<PendingSpan> pendingSpans = new ArrayList<>();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * @return the start time to pass to {@link #end(String, long)}
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(String name, long startTimeNanos) {
+        long durationNanos = System.nanoTime() - startTimeNanos;
+        StartupTraceListener currentListener;
+        synchronized (lock) {
+            currentListener = listener;
+            if (currentListener == null) {
+                if (pendingSpans.size() < MAX_PENDING_SPANS) {
+                    pendingSpans.add(new PendingSpan(name, startTimeNanos, durationNanos));
+                }
+                return;
+            }
+        }
+        notifyListener(currentListener, name, startTimeNanos, durationNanos);
+    }
+
+    public static void setListener(StartupTraceListener newListener) {
+        List<PendingSpan> spans;
+        synchronized (lock) {
+            listener = newListener;
+            if (newListener == null) {
+                return;
+            }
+            spans = new ArrayList<>(pendingSpans);
+            pendingSpans.clear();
+        }
+        for (PendingSpan span : spans) {
+            notifyListener(newListener, span.name, span.startTimeNanos, span.durationNanos);
+        }
+    }
+
+    public static StartupTraceListener getListener() {
+        synchronized (lock) {
+            return listener;
+        }
+    }
+
+    private static void notifyListener(
+            StartupTraceListener listener,
+            String name,
+            long startTimeNanos,
+            long durationNanos) {
+        // A failing listener must not break SDK startup.
+        try {
+            listener.onSpan(name, startTimeNanos, durationNanos);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Startup trace listener failed", e);
+        }
+    }
+
+    private static class PendingSpan {
+        private final String name;
+        private final long startTimeNanos;
+        private final long durationNanos;
+
+        PendingSpan(String name, long startTimeNanos, long durationNanos) {
+            this.name = name;
+            this.startTimeNanos = startTimeNanos;
+            this.durationNanos = durationNanos;
+        }
+    }
+}
@@ -21,8 +21,6 @@
 package com.facebook.internal;
 
 import android.content.Context;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
@@ -34,10 +32,7 @@ import android.provider.OpenableColumns;
 import android.support.annotation.Nullable;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
-import android.util.DisplayMetrics;
 import android.util.Log;
-import android.view.Display;
-import android.view.WindowManager;
 import android.view.autofill.AutofillManager;
 import android.webkit.CookieManager;
 import android.webkit.CookieSyncManager;
@@ -71,7 +66,6 @@ import java.net.URLConnection;
 import java.net.URLDecoder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -98,7 +92,6 @@ public final class Utility {
     private static final String HASH_ALGORITHM_SHA1 = "SHA-1";
     private static final String HASH_ALGORITHM_SHA256 = "SHA-256";
     private static final String URL_SCHEME = "https";
-    private static final String EXTRA_APP_EVENTS_INFO_FORMAT_VERSION = "a2";
 
     private final static String UTF8 = "UTF-8";
 
@@ -645,6 +638,7 @@ public final class Utility {
 
     public static void clearCaches(Context context) {
         ImageDownloader.clearCache(context);
+        GraphRequest.clearResponseCache();
     }
 
     public static void deleteDirectory(File directoryOrFile) {
@@ -720,81 +714,7 @@ public final class Utility {
             JSONObject params,
             Context appContext
     ) throws JSONException {
-        JSONArray extraInfoArray = new JSONArray();
-        extraInfoArray.put(EXTRA_APP_EVENTS_INFO_FORMAT_VERSION);
-
-        Utility.refreshPeriodicExtendedDeviceInfo(appContext);
-
-        // Application Manifest info:
-        String pkgName = appContext.getPackageName();
-        int versionCode = -1;
-        String versionName = "";
-
-        try {
-            PackageInfo pi = appContext.getPackageManager().getPackageInfo(pkgName, 0);
-            versionCode = pi.versionCode;
-            versionName = pi.versionName;
-        } catch (PackageManager.NameNotFoundException e) {
-            // Swallow
-        }
-
-        // Application Manifest info:
-        extraInfoArray.put(pkgName);
-        extraInfoArray.put(versionCode);
-        extraInfoArray.put(versionName);
-
-        // OS/Device info
-        extraInfoArray.put(Build.VERSION.RELEASE);
-        extraInfoArray.put(Build.MODEL);
-
-        // Locale
-        Locale locale;
-        try {
-            locale = appContext.getResources().getConfiguration().locale;
-        } catch (Exception e) {
-            locale = Locale.getDefault();
-        }
-        extraInfoArray.put(locale.getLanguage() + "_" + locale.getCountry());
-
-        // Time zone
-        extraInfoArray.put(deviceTimezoneAbbreviation);
-
-        // Carrier
-        extraInfoArray.put(carrierName);
-
-        // Screen dimensions
-        int width = 0;
-        int height = 0;
-        double density = 0;
-        try {
-            WindowManager wm = (WindowManager) appContext.getSystemService(Context.WINDOW_SERVICE);
-            if (wm != null) {
-                Display display = wm.getDefaultDisplay();
-                DisplayMetrics displayMetrics = new DisplayMetrics();
-                display.getMetrics(displayMetrics);
-                width = displayMetrics.widthPixels;
-                height = displayMetrics.heightPixels;
-                density = displayMetrics.density;
-            }
-        } catch (Exception e) {
-            // Swallow
-        }
-        extraInfoArray.put(width);
-        extraInfoArray.put(height);
-
-        final DecimalFormat df = new DecimalFormat("#.##");
-        extraInfoArray.put(df.format(density));
-
-        // CPU Cores
-        extraInfoArray.put(refreshBestGuessNumberOfCPUCores());
-
-        // External Storage
-        extraInfoArray.put(totalExternalStorageGB);
-        extraInfoArray.put(availableExternalStorageGB);
-
-        extraInfoArray.put(deviceTimeZoneName);
-
-        params.put("extinfo", extraInfoArray.toString());
+        params.put("extinfo", DeviceContextSnapshot.getInstance(appContext).getExtInfo());
     }
 
     public static Method getMethodQuietly(
@@ -1039,7 +959,7 @@ public final class Utility {
      * Return our best guess at the available number of cores. Will always return at least 1.
      * @return The minimum number of CPU cores
      */
-    private static int refreshBestGuessNumberOfCPUCores() {
+    static int refreshBestGuessNumberOfCPUCores() {
         // If we have calculated this before, return that value
         if (numCPUCores > 0) {
             return numCPUCores;
@@ -1069,7 +989,10 @@ public final class Utility {
         return numCPUCores;
     }
 
-    private static void refreshPeriodicExtendedDeviceInfo(Context appContext) {
+    /**
+     * @return true if the timezone, carrier and storage information was refreshed
+     */
+    static boolean refreshPeriodicExtendedDeviceInfo(Context appContext) {
         if (timestampOfLastCheck == -1 ||
                 (System.currentTimeMillis() - timestampOfLastCheck) >=
                         Utility.REFRESH_TIME_FOR_EXTENDED_DEVICE_INFO_MILLIS) {
@@ -1078,10 +1001,32 @@ public final class Utility {
             Utility.refreshCarrierName(appContext);
             Utility.refreshTotalExternalStorage();
             Utility.refreshAvailableExternalStorage();
+            return true;
         }
+        return false;
+    }
+
+    static String getDeviceTimezoneAbbreviation() {
+        return deviceTimezoneAbbreviation;
+    }
+
+    static String getDeviceTimeZoneName() {
+        return deviceTimeZoneName;
+    }
+
+    static String getCarrierName() {
+        return carrierName;
+    }
+
+    static long getTotalExternalStorageGB() {
+        return totalExternalStorageGB;
+    }
+
+    static long getAvailableExternalStorageGB() {
+        return availableExternalStorageGB;
     }
 
-    private static void refreshTimezone() {
+    static void refreshTimezone() {
         try {
             TimeZone tz = TimeZone.getDefault();
             deviceTimezoneAbbreviation = tz.getDisplayName(
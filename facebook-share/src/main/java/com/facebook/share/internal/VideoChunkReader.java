@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.share.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a video stream sequentially into transfer chunks for {@link VideoUploader}.
+ *
+ * Chunks are read straight into reusable byte arrays instead of going through an intermediate
+ * buffer. While one chunk is being uploaded, {@link #readAhead(int)} can pull the next bytes off
+ * the stream, so that the following transfer does not have to wait for disk or content provider
+ * reads. The last chunk is kept so that a retried transfer can be served again without rereading.
+ *
+ * All methods are synchronized: a chunk request made while a read ahead is in progress waits for
+ * it to complete and then uses its bytes.
+ */
+class VideoChunkReader {
+    private final InputStream stream;
+
+    // Stream offset of the next byte that has not been read from the stream yet.
+    private long streamOffset;
+
+    // Bytes that were read ahead of the current chunk, starting at stream offset aheadStart.
+    private byte[] ahead;
+    private int aheadOffset;
+    private int aheadLength;
+
+    private byte[] currentChunk;
+    private long currentChunkStart = -1;
+
+    private byte[] spare;
+
+    VideoChunkReader(InputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Returns the bytes in [start, end) of the stream, or null if they can't be read. Chunks must
+     * be requested in order; requesting the most recent chunk again returns the same bytes.
+     */
+    synchronized byte[] readChunk(long start, long end) throws IOException {
+        int length = (int) (end - start);
+        if (currentChunk != null
+                && currentChunkStart == start
+                && currentChunk.length == length) {
+            return currentChunk;
+        }
+        if (start != getNextOffset() || length < 0) {
+            return null;
+        }
+
+        byte[] chunk;
+        if (ahead != null && aheadOffset == 0 && aheadLength == length && ahead.length == length) {
+            // The read ahead covers the chunk exactly, hand its buffer over.
+            chunk = ahead;
+            ahead = null;
+            aheadLength = 0;
+        } else {
+            chunk = obtainBuffer(length);
+            int copied = Math.min(aheadLength, length);
+            if (copied > 0) {
+                System.arraycopy(ahead, aheadOffset, chunk, 0, copied);
+                aheadOffset += copied;
+                aheadLength -= copied;
+            }
+            if (!readFully(chunk, copied, length - copied)) {
+                return null;
+            }
+        }
+
+        recycle(currentChunk);
+        currentChunk = chunk;
+        currentChunkStart = start;
+        return chunk;
+    }
+
+    /**
+     * Reads up to length bytes following the last requested chunk, if nothing has been read ahead
+     * yet.
+     */
+    synchronized void readAhead(int length) throws IOException {
+        if (aheadLength > 0 || length <= 0) {
+            return;
+        }
+
+        byte[] buffer = obtainBuffer(length);
+        int read = 0;
+        try {
+            while (read < length) {
+                int count = stream.read(buffer, read, length - read);
+                if (count == -1) {
+                    break;
+                }
+                read += count;
+                streamOffset += count;
+            }
+        } finally {
+            // Bytes read before a failure are gone from the stream, keep them for the next chunk.
+            recycle(ahead);
+            ahead = buffer;
+            aheadOffset = 0;
+            aheadLength = read;
+        }
+    }
+
+    synchronized long getNextOffset() {
+        return streamOffset - aheadLength;
+    }
+
+    private boolean readFully(byte[] buffer, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = stream.read(buffer, offset + read, length - read);
+            if (count == -1) {
+                return false;
+            }
+            read += count;
+            streamOffset += count;
+        }
+        return true;
+    }
+
+    private byte[] obtainBuffer(int length) {
+        if (spare != null && spare.length == length) {
+            byte[] buffer = spare;
+            spare = null;
+            return buffer;
+        }
+        return new byte[length];
+    }
+
+    private void recycle(byte[] buffer) {
+        if (buffer != null) {
+            spare = buffer;
+        }
+    }
+}
@@ -48,7 +48,6 @@ import com.facebook.share.model.ShareVideoContent;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -212,46 +211,51 @@ public class VideoUploader {
             String chunkStart,
             String chunkEnd)
             throws IOException {
-        if (!Utility.areObjectsEqual(chunkStart, uploadContext.chunkStart)) {
-            // Something went wrong in the book-keeping here.
+        long chunkStartLong = Long.parseLong(chunkStart);
+        long chunkEndLong = Long.parseLong(chunkEnd);
+
+        byte[] chunk = uploadContext.chunkReader.readChunk(chunkStartLong, chunkEndLong);
+        if (chunk == null) {
+            // Something went wrong in the book-keeping here, or the stream ended early.
             logError(
                     null,
-                    "Error reading video chunk. Expected chunk '%s'. Requested chunk '%s'.",
-                    uploadContext.chunkStart,
+                    "Error reading video chunk. Expected chunk '%d'. Requested chunk '%s'.",
+                    uploadContext.chunkReader.getNextOffset(),
                     chunkStart);
             return null;
         }
 
-        long chunkStartLong = Long.parseLong(chunkStart);
-        long chunkEndLong = Long.parseLong(chunkEnd);
-        int chunkSize = (int) (chunkEndLong - chunkStartLong);
-
-        ByteArrayOutputStream byteBufferStream = new ByteArrayOutputStream();
-        int bufferSize = Math.min(8192, chunkSize);
-        byte[] buffer = new byte[bufferSize];
-
-        int len;
-        while ((len = uploadContext.videoStream.read(buffer)) != -1) {
-            byteBufferStream.write(buffer, 0, len);
-
-            chunkSize -= len;
-            if (chunkSize == 0) {
-                // Done!
-                break;
-            } else if (chunkSize < 0) {
-                // This should not happen. Signal an error.
-                logError(
-                        null,
-                        "Error reading video chunk. Expected buffer length - '%d'. Actual - '%d'.",
-                        chunkSize + len,
-                        len);
-                return null;
-            }
-        }
+        readAheadAsync(uploadContext, chunkEndLong, chunk.length);
 
-        uploadContext.chunkStart = chunkEnd;
+        return chunk;
+    }
 
-        return byteBufferStream.toByteArray();
+    private static void readAheadAsync(
+            final UploadContext uploadContext,
+            long nextChunkStart,
+            int chunkSize) {
+        // The server picks the next offsets when it acknowledges this chunk, but they almost
+        // always continue where this one ended with the same size. Read those bytes while this
+        // chunk is in flight; the reader falls back to the stream if the guess was wrong.
+        final int readAheadSize =
+                (int) Math.min(chunkSize, uploadContext.videoSize - nextChunkStart);
+        if (readAheadSize <= 0) {
+            return;
+        }
+
+        FacebookSdk.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (uploadContext.isCanceled) {
+                    return;
+                }
+                try {
+                    uploadContext.chunkReader.readAhead(readAheadSize);
+                } catch (IOException e) {
+                    // The chunk request will hit the same error and report it.
+                }
+            }
+        });
     }
 
     private static void registerAccessTokenTracker() {
@@ -298,7 +302,7 @@ public class VideoUploader {
         public String videoId;
         public InputStream videoStream;
         public long videoSize;
-        public String chunkStart = "0";
+        public VideoChunkReader chunkReader;
         public boolean isCanceled;
         public WorkQueue.WorkItem workItem;
         public Bundle params;
@@ -350,6 +354,7 @@ public class VideoUploader {
                 } else {
                     throw new FacebookException("Uri must be a content:// or file:// uri");
                 }
+                chunkReader = new VideoChunkReader(videoStream);
             } catch (FileNotFoundException e) {
                 Utility.closeQuietly(videoStream);
 
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import android.os.Bundle;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GraphRequestDeduplicatorTest extends FacebookTestCase {
+    @Before
+    public void before() {
+        FacebookSdk.setApplicationId("123456789");
+        FacebookSdk.setClientToken("abcdef");
+        FacebookSdk.setGraphRequestDeduplicationEnabled(true);
+    }
+
+    @After
+    public void after() {
+        FacebookSdk.setGraphRequestDeduplicationEnabled(false);
+    }
+
+    @Test
+    public void testNoKeyUnlessEnabled() {
+        FacebookSdk.setGraphRequestDeduplicationEnabled(false);
+
+        assertNull(GraphRequestDeduplicator.getKey(
+                new GraphRequestBatch(newRequest("me", "id,name"))));
+    }
+
+    @Test
+    public void testIdenticalGetsShareKey() {
+        String first = GraphRequestDeduplicator.getKey(
+                new GraphRequestBatch(newRequest("me", "id,name")));
+        String second = GraphRequestDeduplicator.getKey(
+                new GraphRequestBatch(newRequest("me", "id,name")));
+        String other = GraphRequestDeduplicator.getKey(
+                new GraphRequestBatch(newRequest("me", "id")));
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertFalse(first.equals(other));
+    }
+
+    @Test
+    public void testKeyLeavesRequestUnchanged() {
+        GraphRequest request = newRequest("me", "id,name");
+
+        assertNotNull(GraphRequestDeduplicator.getKey(new GraphRequestBatch(request)));
+        assertEquals(1, request.getParameters().size());
+    }
+
+    @Test
+    public void testFollowersGetTheirOwnJson() throws Exception {
+        final String key = "testFollowersGetTheirOwnJson";
+        GraphRequestDeduplicator.Call call = GraphRequestDeduplicator.join(key);
+        JSONObject body = new JSONObject("{\"id\":\"4\"}");
+        call.complete(new GraphResponse(newRequest("me", null), null, "raw", body));
+
+        // Changes made by the leader's callbacks don't reach the followers.
+        body.put("id", "5");
+        GraphResponse first = call.await(newRequest("me", null));
+        GraphResponse second = call.await(newRequest("me", null));
+        first.getJSONObject().put("id", "6");
+
+        assertEquals("4", second.getJSONObject().getString("id"));
+        assertNotSame(first.getJSONObject(), second.getJSONObject());
+    }
+
+    @Test
+    public void testOnlySingleGetsHaveKey() {
+        GraphRequest post = newRequest("me/feed", null);
+        post.setHttpMethod(HttpMethod.POST);
+
+        assertNull(GraphRequestDeduplicator.getKey(new GraphRequestBatch(post)));
+        assertNull(GraphRequestDeduplicator.getKey(
+                new GraphRequestBatch(newRequest("me", null), newRequest("me", null))));
+    }
+
+    @Test
+    public void testFollowerReceivesLeadersResponse() throws Exception {
+        final String key = "key";
+        GraphRequestDeduplicator.Call call = GraphRequestDeduplicator.join(key);
+        assertTrue(call.isLeader());
+        assertNull("the leader can't wait for itself", GraphRequestDeduplicator.join(key));
+
+        final GraphRequest followerRequest = newRequest("me", null);
+        final AtomicReference<GraphRequestDeduplicator.Call> followerCall =
+                new AtomicReference<>();
+        final AtomicReference<GraphResponse> followerResponse = new AtomicReference<>();
+        Thread follower = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                GraphRequestDeduplicator.Call call = GraphRequestDeduplicator.join(key);
+                followerCall.set(call);
+                followerResponse.set(call.await(followerRequest));
+            }
+        });
+        follower.start();
+
+        JSONObject body = new JSONObject("{\"id\":\"4\"}");
+        GraphResponse response = new GraphResponse(newRequest("me", null), null, "raw", body);
+        while (followerCall.get() == null) {
+            Thread.sleep(1);
+        }
+        call.complete(response);
+        follower.join();
+
+        assertSame(call, followerCall.get());
+        assertSame(followerRequest, followerResponse.get().getRequest());
+        assertNotSame(body, followerResponse.get().getJSONObject());
+        assertEquals("4", followerResponse.get().getJSONObject().getString("id"));
+        assertEquals("raw", followerResponse.get().getRawResponse());
+
+        GraphRequestDeduplicator.Call next = GraphRequestDeduplicator.join(key);
+        assertNotSame(call, next);
+        next.complete(null);
+    }
+
+    private static GraphRequest newRequest(String graphPath, String fields) {
+        Bundle parameters = new Bundle();
+        if (fields != null) {
+            parameters.putString(GraphRequest.FIELDS_PARAM, fields);
+        }
+        return new GraphRequest(null, graphPath, parameters, HttpMethod.GET, null);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class GraphRequestExecutorTest extends FacebookTestCase {
+    @Test
+    public void testBackgroundLaneIsBounded() {
+        PendingExecutor threads = new PendingExecutor();
+        GraphRequestExecutor executor = new GraphRequestExecutor(threads);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < GraphRequestExecutor.MAX_BACKGROUND_CONCURRENT + 3; i++) {
+            executor.getExecutor(true).execute(new CountingRunnable(runs));
+        }
+        assertEquals(GraphRequestExecutor.MAX_BACKGROUND_CONCURRENT, threads.getPendingCount());
+
+        threads.runNext();
+        assertEquals(1, runs.get());
+        assertEquals(GraphRequestExecutor.MAX_BACKGROUND_CONCURRENT, threads.getPendingCount());
+    }
+
+    @Test
+    public void testInteractiveRequestsAreNotHeldUpByBackgroundRequests() {
+        PendingExecutor threads = new PendingExecutor();
+        GraphRequestExecutor executor = new GraphRequestExecutor(threads);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < GraphRequestExecutor.MAX_BACKGROUND_CONCURRENT * 4; i++) {
+            executor.getExecutor(true).execute(new CountingRunnable(runs));
+        }
+        for (int i = 0; i < GraphRequestExecutor.MAX_INTERACTIVE_CONCURRENT; i++) {
+            executor.getExecutor(false).execute(new CountingRunnable(runs));
+        }
+
+        assertEquals(
+                GraphRequestExecutor.MAX_BACKGROUND_CONCURRENT
+                        + GraphRequestExecutor.MAX_INTERACTIVE_CONCURRENT,
+                threads.getPendingCount());
+    }
+
+    @Test
+    public void testExecuteAndWaitRunsInLane() throws Exception {
+        final GraphRequestExecutor executor = new GraphRequestExecutor(new ThreadExecutor());
+        final Thread caller = Thread.currentThread();
+
+        Thread laneThread = executor.executeAndWait(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                // Nested calls run right away instead of waiting for a slot in the lane.
+                Thread nestedThread = executor.executeAndWait(new Callable<Thread>() {
+                    @Override
+                    public Thread call() {
+                        return Thread.currentThread();
+                    }
+                }, true);
+                assertSame(Thread.currentThread(), nestedThread);
+                return Thread.currentThread();
+            }
+        }, true);
+
+        assertNotSame(caller, laneThread);
+    }
+
+    @Test
+    public void testExecuteAndWaitRethrows() {
+        GraphRequestExecutor executor = new GraphRequestExecutor(new ThreadExecutor());
+        final FacebookException error = new FacebookException("failed");
+        try {
+            executor.executeAndWait(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    throw error;
+                }
+            }, true);
+            fail();
+        } catch (FacebookException e) {
+            assertSame(error, e);
+        }
+    }
+
+    private static class ThreadExecutor implements Executor {
+        @Override
+        public void execute(Runnable runnable) {
+            new Thread(runnable).start();
+        }
+    }
+
+    private static class PendingExecutor implements Executor {
+        private final List<Runnable> runnables = new ArrayList<>();
+
+        int getPendingCount() {
+            return runnables.size();
+        }
+
+        void runNext() {
+            runnables.remove(0).run();
+        }
+
+        @Override
+        public void execute(Runnable runnable) {
+            runnables.add(runnable);
+        }
+    }
+
+    private static class CountingRunnable implements Runnable {
+        private final AtomicInteger runs;
+
+        CountingRunnable(AtomicInteger runs) {
+            this.runs = runs;
+        }
+
+        @Override
+        public void run() {
+            runs.incrementAndGet();
+        }
+    }
+}
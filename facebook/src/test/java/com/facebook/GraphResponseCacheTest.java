@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import com.facebook.internal.HttpTransport;
+import com.facebook.internal.Utility;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GraphResponseCacheTest extends FacebookTestCase {
+    private static final long NOW = 1000000;
+
+    private final MockTransport transport = new MockTransport();
+    private HttpTransport originalTransport;
+
+    @Before
+    public void before() {
+        FacebookSdk.setApplicationId("123456789");
+        FacebookSdk.setClientToken("abcdef");
+        FacebookSdk.setAutoLogAppEventsEnabled(false);
+        FacebookSdk.sdkInitialize(RuntimeEnvironment.application);
+        FacebookSdk.fullyInitialize();
+        originalTransport = GraphRequest.getHttpTransport();
+        GraphRequest.setHttpTransport(transport);
+    }
+
+    @After
+    public void after() {
+        GraphRequest.setHttpTransport(originalTransport);
+    }
+
+    @Test
+    public void testMaxAgeMakesEntryFresh() {
+        GraphResponseCache.Entry entry =
+                GraphResponseCache.createEntry("private, max-age=60", null, "{}", NOW);
+
+        assertNotNull(entry);
+        assertTrue(entry.isFresh(NOW + 59 * 1000));
+        assertFalse(entry.isFresh(NOW + 60 * 1000));
+    }
+
+    @Test
+    public void testNoCacheWithETagIsRevalidated() {
+        GraphResponseCache.Entry entry = GraphResponseCache.createEntry(
+                "no-cache, max-age=60", "\"abc\"", "{}", NOW);
+
+        assertNotNull(entry);
+        assertFalse(entry.isFresh(NOW));
+        assertEquals("\"abc\"", entry.etag);
+    }
+
+    @Test
+    public void testUncacheableResponses() {
+        assertNull(GraphResponseCache.createEntry("no-store, max-age=60", "\"abc\"", "{}", NOW));
+        assertNull(GraphResponseCache.createEntry(null, null, "{}", NOW));
+        assertNull(GraphResponseCache.createEntry("max-age=0", null, "{}", NOW));
+    }
+
+    @Test
+    public void testOnlyOptedInGetsHaveKey() {
+        GraphRequest request = new GraphRequest(null, "me");
+        assertNull(GraphResponseCache.getKey(new GraphRequestBatch(request)));
+
+        request.setResponseCacheEnabled(true);
+        String key = GraphResponseCache.getKey(new GraphRequestBatch(request));
+        assertNotNull(key);
+        assertFalse(key.contains("abcdef"));
+
+        request.setHttpMethod(HttpMethod.POST);
+        assertNull(GraphResponseCache.getKey(new GraphRequestBatch(request)));
+    }
+
+    @Test
+    public void testEntriesArePersisted() {
+        GraphResponseCache.Entry entry = new GraphResponseCache.Entry(
+                "{\"id\":\"4\",\"name\":\"Mark\"}", "\"abc\"", NOW);
+        new GraphResponseCache().put("testEntriesArePersisted", entry);
+
+        GraphResponseCache.Entry read = new GraphResponseCache().get("testEntriesArePersisted");
+
+        assertNotNull(read);
+        assertEquals(entry.body, read.body);
+        assertEquals(entry.etag, read.etag);
+        assertEquals(entry.expiresAtMillis, read.expiresAtMillis);
+    }
+
+    @Test
+    public void testCreateResponsesFromEntry() throws Exception {
+        GraphRequest request = new GraphRequest(null, "me");
+        GraphResponseCache.Entry entry =
+                new GraphResponseCache.Entry("{\"id\":\"4\"}", null, NOW);
+
+        List<GraphResponse> responses =
+                GraphResponseCache.createResponses(entry, new GraphRequestBatch(request));
+
+        assertNotNull(responses);
+        assertEquals(1, responses.size());
+        assertNull(responses.get(0).getError());
+        assertEquals("4", responses.get(0).getJSONObject().getString("id"));
+    }
+
+    @Test
+    public void testStoresOkResponse() throws Exception {
+        String body = "{\"id\":\"4\"}";
+        transport.connections.add(createConnection(200, "max-age=60", "\"v1\"", body));
+
+        GraphRequest request = createCachedRequest("testStoresOkResponse");
+        assertEquals("4", request.executeAndWait().getJSONObject().getString("id"));
+
+        GraphResponseCache.Entry entry = GraphResponseCache.getInstance().get(getKey(request));
+        assertNotNull(entry);
+        assertEquals(body, entry.body);
+        assertEquals("\"v1\"", entry.etag);
+
+        // Served from the cache while fresh, without opening a connection.
+        GraphResponse cached = createCachedRequest("testStoresOkResponse").executeAndWait();
+        assertEquals("4", cached.getJSONObject().getString("id"));
+        assertEquals(1, transport.opened);
+    }
+
+    @Test
+    public void testNotModifiedServesCachedBody() throws Exception {
+        GraphRequest request = createCachedRequest("testNotModifiedServesCachedBody");
+        String key = getKey(request);
+        GraphResponseCache.getInstance().put(
+                key, new GraphResponseCache.Entry("{\"id\":\"5\"}", "\"v1\"", 0));
+        HttpURLConnection connection = createConnection(304, "max-age=60", null, null);
+        transport.connections.add(connection);
+
+        GraphResponse response = request.executeAndWait();
+
+        // The stale entry is revalidated with its ETag.
+        verify(connection).setRequestProperty("If-None-Match", "\"v1\"");
+        assertNull(response.getError());
+        assertEquals("5", response.getJSONObject().getString("id"));
+        GraphResponseCache.Entry refreshed = GraphResponseCache.getInstance().get(key);
+        assertTrue(refreshed.isFresh(System.currentTimeMillis()));
+        assertEquals("\"v1\"", refreshed.etag);
+    }
+
+    @Test
+    public void testChangedResponseReplacesStaleEntry() throws Exception {
+        GraphRequest request = createCachedRequest("testChangedResponseReplacesStaleEntry");
+        String key = getKey(request);
+        GraphResponseCache.getInstance().put(
+                key, new GraphResponseCache.Entry("{\"id\":\"5\"}", "\"v1\"", 0));
+        HttpURLConnection connection =
+                createConnection(200, null, "\"v2\"", "{\"id\":\"6\"}");
+        transport.connections.add(connection);
+
+        GraphResponse response = request.executeAndWait();
+
+        verify(connection).setRequestProperty("If-None-Match", "\"v1\"");
+        assertEquals("6", response.getJSONObject().getString("id"));
+        assertEquals("\"v2\"", GraphResponseCache.getInstance().get(key).etag);
+    }
+
+    @Test
+    public void testOkResponseReleasesConnectionOnceAsReusable() throws Exception {
+        transport.connections.add(createConnection(200, null, null, "{\"id\":\"4\"}"));
+
+        GraphResponse response = new GraphRequest(null, "me").executeAndWait();
+
+        assertNull(response.getError());
+        assertEquals(Arrays.asList(true), transport.released);
+    }
+
+    @Test
+    public void testNotModifiedReleasesConnectionOnceAsReusable() throws Exception {
+        GraphRequest request =
+                createCachedRequest("testNotModifiedReleasesConnectionOnceAsReusable");
+        GraphResponseCache.getInstance().put(
+                getKey(request), new GraphResponseCache.Entry("{\"id\":\"5\"}", "\"v1\"", 0));
+        transport.connections.add(createConnection(304, "max-age=60", null, null));
+
+        request.executeAndWait();
+
+        assertEquals(Arrays.asList(true), transport.released);
+    }
+
+    @Test
+    public void testClearedWhenAccessTokenChanges() {
+        GraphResponseCache cache = GraphResponseCache.getInstance();
+        GraphResponseCache.Entry entry = new GraphResponseCache.Entry("{}", null, Long.MAX_VALUE);
+        AccessToken.setCurrentAccessToken(null);
+
+        AccessToken.setCurrentAccessToken(createAccessToken("first"));
+        cache.put("testClearedWhenAccessTokenChanges", entry);
+        AccessToken.setCurrentAccessToken(createAccessToken("first"));
+        assertNotNull(cache.get("testClearedWhenAccessTokenChanges"));
+
+        AccessToken.setCurrentAccessToken(createAccessToken("second"));
+        assertNull(cache.get("testClearedWhenAccessTokenChanges"));
+
+        cache.put("testClearedWhenAccessTokenChanges", entry);
+        AccessToken.setCurrentAccessToken(null);
+        assertNull(cache.get("testClearedWhenAccessTokenChanges"));
+
+        cache.put("testClearedWhenAccessTokenChanges", entry);
+        Utility.clearCaches(RuntimeEnvironment.application);
+        assertNull(cache.get("testClearedWhenAccessTokenChanges"));
+    }
+
+    @Test
+    public void testResponseToEarlierRequestIsNotStoredAfterClear() {
+        GraphResponseCache cache = GraphResponseCache.getInstance();
+        int generation = cache.getGeneration();
+        cache.clear();
+
+        cache.put("testResponseToEarlierRequestIsNotStoredAfterClear",
+                new GraphResponseCache.Entry("{}", null, Long.MAX_VALUE),
+                generation);
+        assertNull(cache.get("testResponseToEarlierRequestIsNotStoredAfterClear"));
+    }
+
+    @Test
+    public void testClearLeavesUnusedDiskCacheClosed() {
+        GraphResponseCache cache = new GraphResponseCache();
+        cache.clear();
+
+        assertNull(Whitebox.getInternalState(cache, "diskCache"));
+    }
+
+    private static GraphRequest createCachedRequest(String path) {
+        GraphRequest request = new GraphRequest(null, path);
+        request.setResponseCacheEnabled(true);
+        return request;
+    }
+
+    private static String getKey(GraphRequest request) {
+        return GraphResponseCache.getKey(new GraphRequestBatch(request));
+    }
+
+    private static HttpURLConnection createConnection(
+            int responseCode,
+            String cacheControl,
+            String etag,
+            String body) throws IOException {
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(connection.getURL()).thenReturn(new URL("https://graph.facebook.com/"));
+        when(connection.getResponseCode()).thenReturn(responseCode);
+        when(connection.getHeaderField("Cache-Control")).thenReturn(cacheControl);
+        when(connection.getHeaderField("ETag")).thenReturn(etag);
+        if (body != null) {
+            when(connection.getInputStream())
+                    .thenReturn(new ByteArrayInputStream(body.getBytes("UTF-8")));
+        }
+        return connection;
+    }
+
+    private static AccessToken createAccessToken(String tokenString) {
+        return new AccessToken(
+                tokenString,
+                "123456789",
+                "1000",
+                Arrays.asList("public_profile"),
+                null,
+                null,
+                AccessTokenSource.WEB_VIEW,
+                new Date(Long.MAX_VALUE),
+                new Date(),
+                new Date(Long.MAX_VALUE));
+    }
+
+    private static class MockTransport implements HttpTransport {
+        final List<HttpURLConnection> connections = new ArrayList<>();
+        final List<Boolean> released = new ArrayList<>();
+        int opened;
+
+        @Override
+        public HttpURLConnection openConnection(URL url) {
+            return connections.get(opened++);
+        }
+
+        @Override
+        public void releaseConnection(HttpURLConnection connection, boolean reusable) {
+            released.add(reusable);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GraphResponseStreamParserTest extends FacebookTestCase {
+    private static final String BATCH_RESPONSE =
+            "[{\"code\":200,\"headers\":[],\"body\":\"{\\\"id\\\":\\\"1\\\"}\"},"
+            + "{\"code\":200,\"headers\":[],\"body\":\"[1,2,3]\"},"
+            + "{\"code\":400,\"headers\":[],\"body\":\"{\\\"error\\\":{\\\"message\\\":\\\"bad\\\","
+            + "\\\"type\\\":\\\"OAuthException\\\",\\\"code\\\":100}}\"}]";
+
+    @Before
+    public void before() {
+        FacebookSdk.setApplicationId("123456789");
+        FacebookSdk.setAutoLogAppEventsEnabled(false);
+        FacebookSdk.sdkInitialize(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testParsesEntriesInOrder() throws Exception {
+        GraphRequestBatch batch = newBatch(3);
+        RecordingListener listener = new RecordingListener();
+
+        List<GraphResponse> responses = GraphResponseStreamParser.parse(
+                stream(BATCH_RESPONSE), null, batch, listener);
+
+        assertEquals(3, responses.size());
+        assertEquals("1", responses.get(0).getJSONObject().optString("id"));
+        assertEquals(3, responses.get(1).getJSONArray().length());
+        assertNotNull(responses.get(2).getError());
+        assertEquals(100, responses.get(2).getError().getErrorCode());
+        for (int i = 0; i < 3; i++) {
+            assertSame(batch.get(i), responses.get(i).getRequest());
+            assertEquals(Integer.valueOf(i), listener.indices.get(i));
+            assertSame(responses.get(i), listener.responses.get(i));
+        }
+    }
+
+    @Test
+    public void testMissingEntriesBecomeErrors() throws Exception {
+        GraphRequestBatch batch = newBatch(4);
+        RecordingListener listener = new RecordingListener();
+
+        List<GraphResponse> responses = GraphResponseStreamParser.parse(
+                stream(BATCH_RESPONSE), null, batch, listener);
+
+        assertEquals(4, responses.size());
+        assertNull(responses.get(0).getError());
+        assertNotNull(responses.get(3).getError());
+        assertEquals(4, listener.responses.size());
+    }
+
+    @Test
+    public void testTruncatedStreamFailsRemainingEntries() throws Exception {
+        GraphRequestBatch batch = newBatch(3);
+        String truncated = BATCH_RESPONSE.substring(0, BATCH_RESPONSE.indexOf("[1,2,3]"));
+
+        List<GraphResponse> responses = GraphResponseStreamParser.parse(
+                stream(truncated), null, batch, null);
+
+        assertEquals(3, responses.size());
+        assertNull(responses.get(0).getError());
+        assertNotNull(responses.get(1).getError());
+        assertNotNull(responses.get(2).getError());
+    }
+
+    private static GraphRequestBatch newBatch(int size) {
+        GraphRequestBatch batch = new GraphRequestBatch();
+        for (int i = 0; i < size; i++) {
+            batch.add(new GraphRequest(null, "me"));
+        }
+        batch.setStreamingResponsesEnabled(true);
+        return batch;
+    }
+
+    private static ByteArrayInputStream stream(String response) throws Exception {
+        return new ByteArrayInputStream(response.getBytes("UTF-8"));
+    }
+
+    private static class RecordingListener implements GraphResponseStreamParser.Listener {
+        final List<Integer> indices = new ArrayList<>();
+        final List<GraphResponse> responses = new ArrayList<>();
+
+        @Override
+        public void onResponse(int index, GraphResponse response) {
+            indices.add(index);
+            responses.add(response);
+        }
+    }
+}
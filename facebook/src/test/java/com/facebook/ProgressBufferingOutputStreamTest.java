@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProgressBufferingOutputStreamTest extends FacebookTestCase {
+    private ProgressBufferingOutputStream stream;
+
+    @Before
+    public void before() throws Exception {
+        FacebookSdk.setApplicationId("123456789");
+        FacebookSdk.setAutoLogAppEventsEnabled(false);
+        FacebookSdk.sdkInitialize(RuntimeEnvironment.application);
+        stream = new ProgressBufferingOutputStream(null);
+    }
+
+    @Test
+    public void testCountsAndReplaysInOrder() throws Exception {
+        GraphRequest first = new GraphRequest();
+        GraphRequest second = new GraphRequest();
+
+        stream.setCurrentRequest(first);
+        stream.write(new byte[] {1, 2});
+        stream.writeBytesReference(new byte[] {3, 4, 5});
+        stream.write(6);
+        stream.setCurrentRequest(second);
+        stream.write(new byte[] {0, 7, 8, 0}, 1, 2);
+
+        assertEquals(8, stream.getMaxProgress());
+        assertEquals(6, stream.getProgressMap().get(first).getMaxProgress());
+        assertEquals(2, stream.getProgressMap().get(second).getMaxProgress());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.writeTo(out);
+        assertTrue(Arrays.equals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, out.toByteArray()));
+    }
+
+    @Test
+    public void testReplayReportsProgressPerRequest() throws Exception {
+        GraphRequest request = new GraphRequest();
+        GraphRequestBatch batch = new GraphRequestBatch(request);
+
+        stream.setCurrentRequest(request);
+        stream.write(new byte[16]);
+
+        ProgressOutputStream progressStream = new ProgressOutputStream(
+                new ByteArrayOutputStream(),
+                batch,
+                stream.getProgressMap(),
+                stream.getMaxProgress());
+        stream.writeTo(progressStream);
+
+        assertEquals(16, progressStream.getBatchProgress());
+        assertEquals(16, stream.getProgressMap().get(request).getProgress());
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook;
+
+import com.facebook.internal.StartupTrace;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTraceRecorderTest extends FacebookTestCase {
+    @After
+    public void after() {
+        FacebookSdk.setStartupTraceListener(null);
+    }
+
+    @Test
+    public void testRecordsSpans() {
+        StartupTraceRecorder recorder = new StartupTraceRecorder();
+        FacebookSdk.setStartupTraceListener(recorder);
+        recorder.clear();
+
+        long startTimeNanos = StartupTrace.begin();
+        StartupTrace.end(StartupTraceListener.SPAN_LOAD_ACCESS_TOKEN, startTimeNanos);
+
+        List<StartupTraceRecorder.Span> spans =
+                recorder.getSpans(StartupTraceListener.SPAN_LOAD_ACCESS_TOKEN);
+        assertEquals(1, spans.size());
+        assertEquals(startTimeNanos, spans.get(0).getStartTimeNanos());
+        assertTrue(spans.get(0).getDurationNanos() >= 0);
+        assertTrue(recorder.dump().startsWith(StartupTraceListener.SPAN_LOAD_ACCESS_TOKEN + ": "));
+    }
+
+    @Test
+    public void testDeliversSpansEndedBeforeListenerWasSet() {
+        FacebookSdk.setStartupTraceListener(null);
+        StartupTrace.end(StartupTraceListener.SPAN_INIT_PROVIDER_CREATE, StartupTrace.begin());
+
+        StartupTraceRecorder recorder = new StartupTraceRecorder();
+        FacebookSdk.setStartupTraceListener(recorder);
+
+        assertEquals(1, recorder.getSpans(StartupTraceListener.SPAN_INIT_PROVIDER_CREATE).size());
+        assertEquals(recorder, FacebookSdk.getStartupTraceListener());
+    }
+
+    @Test
+    public void testFailingListenerDoesNotThrow() {
+        FacebookSdk.setStartupTraceListener(new StartupTraceListener() {
+            @Override
+            public void onSpan(String name, long startTimeNanos, long durationNanos) {
+                throw new IllegalStateException("failed");
+            }
+        });
+
+        StartupTrace.end(StartupTraceListener.SPAN_LOAD_PROFILE, StartupTrace.begin());
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents;
+
+import com.facebook.FacebookSdk;
+import com.facebook.FacebookTestCase;
+import com.facebook.internal.Utility;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AppEventJournalTest extends FacebookTestCase {
+    private File directory;
+
+    @Before
+    public void init() {
+        FacebookSdk.setApplicationId("123456789");
+        FacebookSdk.setAutoLogAppEventsEnabled(false);
+        FacebookSdk.sdkInitialize(RuntimeEnvironment.application);
+        directory = new File(RuntimeEnvironment.application.getCacheDir(), "journalTest");
+        Utility.deleteDirectory(directory);
+    }
+
+    @After
+    public void cleanup() {
+        Utility.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testAppendAndReadBack() throws Exception {
+        AppEventJournal journal = new AppEventJournal(directory);
+        AccessTokenAppIdPair first = new AccessTokenAppIdPair("token1", "app1");
+        AccessTokenAppIdPair second = new AccessTokenAppIdPair(null, "app2");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+
+        journal.append(first, Arrays.asList(appEvent, appEvent));
+        journal.append(second, Arrays.asList(appEvent));
+
+        RecordingHandler handler = new RecordingHandler();
+        assertEquals(3, journal.readAndClear(handler));
+        assertEquals(Arrays.asList(first, first, second), handler.pairs);
+        for (AppEvent readEvent : handler.events) {
+            assertTrue(readEvent.isChecksumValid());
+            assertEquals(
+                    appEvent.getJSONObject().toString(),
+                    readEvent.getJSONObject().toString());
+        }
+
+        assertEquals(0, journal.segmentCount());
+        assertEquals(0, journal.readAndClear(new RecordingHandler()));
+    }
+
+    @Test
+    public void testTruncatedRecordIsDropped() throws Exception {
+        AppEventJournal journal = new AppEventJournal(directory);
+        AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token", "app");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+        journal.append(pair, Arrays.asList(appEvent, appEvent));
+
+        File segment = directory.listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+
+        RecordingHandler handler = new RecordingHandler();
+        assertEquals(1, journal.readAndClear(handler));
+        assertEquals(0, journal.segmentCount());
+    }
+
+    @Test
+    public void testCorruptRecordIsDropped() throws Exception {
+        AppEventJournal journal = new AppEventJournal(directory);
+        AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token", "app");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+        journal.append(pair, Arrays.asList(appEvent));
+
+        File segment = directory.listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            // Flip a byte in the payload, past the length and crc header.
+            file.seek(12);
+            int value = file.read();
+            file.seek(12);
+            file.write(value ^ 0xff);
+        } finally {
+            file.close();
+        }
+
+        assertEquals(0, journal.readAndClear(new RecordingHandler()));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        // Tiny segments so every append rolls over to a new one.
+        AppEventJournal journal = new AppEventJournal(directory, 1, 4);
+        AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token", "app");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+
+        for (int i = 0; i < 5; i++) {
+            journal.append(pair, Arrays.asList(appEvent));
+        }
+        assertEquals(1, journal.segmentCount());
+
+        journal.append(pair, Arrays.asList(appEvent));
+        assertEquals(2, journal.segmentCount());
+
+        assertEquals(6, journal.readAndClear(new RecordingHandler()));
+    }
+
+    @Test
+    public void testFailedCompactionKeepsEvents() throws Exception {
+        AppEventJournal journal = new AppEventJournal(directory, 1, 4) {
+            @Override
+            boolean installSegment(File source, File target) {
+                return false;
+            }
+        };
+        AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token", "app");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+
+        for (int i = 0; i < 5; i++) {
+            journal.append(pair, Arrays.asList(appEvent));
+        }
+        assertEquals(5, journal.segmentCount());
+        for (String name : directory.list()) {
+            assertFalse(name, name.endsWith(".tmp"));
+        }
+
+        assertEquals(5, journal.readAndClear(new RecordingHandler()));
+    }
+
+    @Test
+    public void testDeletesLeftoverCompactionFile() throws Exception {
+        AppEventJournal journal = new AppEventJournal(directory);
+        AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token", "app");
+        journal.append(pair, Arrays.asList(AppEventTestUtilities.getTestAppEvent()));
+
+        File segment = directory.listFiles()[0];
+        File leftover = new File(directory, segment.getName() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(leftover);
+        stream.write(new byte[] {1, 2, 3});
+        stream.close();
+
+        AppEventJournal reopened = new AppEventJournal(directory);
+        assertEquals(1, reopened.readAndClear(new RecordingHandler()));
+        assertFalse(leftover.exists());
+    }
+
+    @Test
+    public void testIgnoresUnknownFiles() throws Exception {
+        assertTrue(directory.mkdirs());
+        FileOutputStream stream = new FileOutputStream(new File(directory, "unrelated"));
+        stream.write(new byte[] {1, 2, 3});
+        stream.close();
+
+        AppEventJournal journal = new AppEventJournal(directory);
+        journal.append(
+                new AccessTokenAppIdPair("token", "app"),
+                Arrays.asList(AppEventTestUtilities.getTestAppEvent()));
+        assertEquals(1, journal.readAndClear(new RecordingHandler()));
+    }
+
+    private static class RecordingHandler implements AppEventJournal.RecordHandler {
+        final List<AccessTokenAppIdPair> pairs = new ArrayList<>();
+        final List<AppEvent> events = new ArrayList<>();
+
+        @Override
+        public void onRecord(AccessTokenAppIdPair accessTokenAppIdPair, AppEvent appEvent) {
+            pairs.add(accessTokenAppIdPair);
+            events.add(appEvent);
+        }
+    }
+}
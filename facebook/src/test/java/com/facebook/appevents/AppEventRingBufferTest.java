@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents;
+
+import com.facebook.FacebookSdk;
+import com.facebook.FacebookTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AppEventRingBufferTest extends FacebookTestCase {
+
+    @Before
+    public void init() {
+        FacebookSdk.setApplicationId("123456789");
+        FacebookSdk.setAutoLogAppEventsEnabled(false);
+        FacebookSdk.sdkInitialize(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testKeySetCoversUndrainedEvents() throws Exception {
+        AppEventRingBuffer buffer = new AppEventRingBuffer(8);
+        AccessTokenAppIdPair first = new AccessTokenAppIdPair("token1", "app1");
+        AccessTokenAppIdPair second = new AccessTokenAppIdPair("token2", "app2");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+
+        buffer.offer(first, appEvent);
+        buffer.offer(second, appEvent);
+        buffer.offer(first, appEvent);
+        assertEquals(2, buffer.keySet().size());
+        assertTrue(buffer.keySet().contains(second));
+
+        buffer.drainTo(new AppEventCollection());
+        assertTrue(buffer.keySet().isEmpty());
+    }
+
+    @Test
+    public void testDrainMovesEventsIntoCollection() throws Exception {
+        AppEventRingBuffer buffer = new AppEventRingBuffer(8);
+        AccessTokenAppIdPair first = new AccessTokenAppIdPair("token1", "app1");
+        AccessTokenAppIdPair second = new AccessTokenAppIdPair("token2", "app2");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+
+        assertTrue(buffer.offer(first, appEvent));
+        assertTrue(buffer.offer(second, appEvent));
+        assertTrue(buffer.offer(first, appEvent));
+        assertEquals(3, buffer.size());
+
+        AppEventCollection collection = new AppEventCollection();
+        assertEquals(3, buffer.drainTo(collection));
+        assertEquals(0, buffer.size());
+        assertEquals(3, collection.getEventCount());
+        assertEquals(2, collection.get(first).getAccumulatedEventCount());
+        assertEquals(1, collection.get(second).getAccumulatedEventCount());
+
+        assertEquals(0, buffer.drainTo(collection));
+    }
+
+    @Test
+    public void testOfferFailsWhenFull() throws Exception {
+        AppEventRingBuffer buffer = new AppEventRingBuffer(4);
+        AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token", "app");
+        AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(pair, appEvent));
+        }
+        assertFalse(buffer.offer(pair, appEvent));
+
+        // Draining frees the slots up again, wrapping around the ring.
+        buffer.drainTo(new AppEventCollection());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(pair, appEvent));
+        }
+        assertEquals(4, buffer.size());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final int producerCount = 4;
+        final int eventsPerProducer = 200;
+        final AppEventRingBuffer buffer = new AppEventRingBuffer(1024);
+        final AppEvent appEvent = AppEventTestUtilities.getTestAppEvent();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(producerCount);
+
+        for (int i = 0; i < producerCount; i++) {
+            final AccessTokenAppIdPair pair = new AccessTokenAppIdPair("token" + i, "app");
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < eventsPerProducer; j++) {
+                            buffer.offer(pair, appEvent);
+                        }
+                    } catch (InterruptedException e) {
+                        // Fall through, the count check below will fail.
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+        done.await();
+
+        AppEventCollection collection = new AppEventCollection();
+        assertEquals(producerCount * eventsPerProducer, buffer.size());
+        assertEquals(producerCount * eventsPerProducer, buffer.drainTo(collection));
+        assertEquals(producerCount * eventsPerProducer, collection.getEventCount());
+    }
+}
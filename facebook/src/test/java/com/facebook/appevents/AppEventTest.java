@@ -20,11 +20,15 @@
 
 package com.facebook.appevents;
 
+import android.os.Bundle;
+
+import com.facebook.FacebookException;
 import com.facebook.FacebookSdk;
 import com.facebook.FacebookTestCase;
 
 import com.facebook.appevents.internal.Constants;
 
+import org.json.JSONObject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -77,4 +81,36 @@ public class AppEventTest extends FacebookTestCase {
         Assert.assertTrue(
                 appEvent1.getJSONObject().toString().equals(appEvent2.getJSONObject().toString()));
     }
+
+    @Test
+    public void testParametersCapturedWhenEventIsCreated() throws Exception {
+        Bundle parameters = new Bundle();
+        parameters.putString("key1", "value1");
+        parameters.putInt("key2", 2);
+        AppEvent appEvent = new AppEvent(
+                "contextName",
+                "eventName",
+                1.0,
+                parameters,
+                false,
+                false,
+                null);
+
+        // Changes made after logging must not leak into the deferred encoding.
+        parameters.putString("key1", "changed");
+        parameters.putString("key3", "added");
+
+        JSONObject json = appEvent.getJSONObject();
+        Assert.assertEquals("value1", json.getString("key1"));
+        Assert.assertEquals("2", json.getString("key2"));
+        Assert.assertFalse(json.has("key3"));
+        Assert.assertTrue(appEvent.isChecksumValid());
+    }
+
+    @Test(expected = FacebookException.class)
+    public void testInvalidParameterRejectedWhenEventIsCreated() throws Exception {
+        Bundle parameters = new Bundle();
+        parameters.putString("invalid key!", "value");
+        new AppEvent("contextName", "eventName", null, parameters, false, false, null);
+    }
 }
@@ -26,16 +26,21 @@ import android.os.Bundle;
 import com.facebook.FacebookPowerMockTestCase;
 import com.facebook.FacebookSdk;
 import com.facebook.GraphRequest;
+import com.facebook.GraphRequestBatch;
+import com.facebook.GraphResponse;
 import com.facebook.appevents.internal.ActivityLifecycleTracker;
 import com.facebook.internal.FetchedAppGateKeepersManager;
 import com.facebook.internal.FetchedAppSettingsManager;
 import com.facebook.internal.FetchedAppSettings;
 
 import org.json.JSONObject;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
@@ -44,6 +49,10 @@ import org.powermock.reflect.Whitebox;
 import org.robolectric.Robolectric;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -129,6 +138,9 @@ public class AutomaticAnalyticsTest extends FacebookPowerMockTestCase {
         PowerMockito.spy(AppEventQueue.class);
         PowerMockito.doReturn(mockRequest).when(AppEventQueue.class, "buildRequestForSession",
                 Matchers.any(), Matchers.any(), Matchers.anyBoolean(), Matchers.any());
+        PowerMockito.spy(GraphRequest.class);
+        PowerMockito.doReturn(new ArrayList<GraphResponse>()).when(GraphRequest.class);
+        GraphRequest.executeBatchAndWait(Matchers.any(GraphRequestBatch.class));
 
         AppEventsLoggerImpl loggerImpl = new AppEventsLoggerImpl(RuntimeEnvironment.application,
                 "1234", null);
@@ -136,7 +148,44 @@ public class AutomaticAnalyticsTest extends FacebookPowerMockTestCase {
         loggerImpl.flush();
         Thread.sleep(200);
 
-        Mockito.verify(mockRequest).executeAndWait();
+        ArgumentCaptor<GraphRequestBatch> batch = ArgumentCaptor.forClass(GraphRequestBatch.class);
+        PowerMockito.verifyStatic();
+        GraphRequest.executeBatchAndWait(batch.capture());
+        assertSame(mockRequest, batch.getValue().get(0));
+        assertTrue(batch.getValue().isBackgroundPriority());
     }
 
+    @Test
+    public void testFlushSplitsPairsIntoBatches() throws Exception {
+        Whitebox.setInternalState(
+                FacebookSdk.class, "applicationContext", RuntimeEnvironment.application);
+        GraphRequest mockRequest = PowerMockito.mock(GraphRequest.class);
+        PowerMockito.spy(AppEventQueue.class);
+        PowerMockito.doReturn(mockRequest).when(AppEventQueue.class, "buildRequestForSession",
+                Matchers.any(), Matchers.any(), Matchers.anyBoolean(), Matchers.any());
+        PowerMockito.spy(GraphRequest.class);
+        PowerMockito.doReturn(new ArrayList<GraphResponse>()).when(GraphRequest.class);
+        GraphRequest.executeBatchAndWait(Matchers.any(GraphRequestBatch.class));
+
+        // One pair more than fits in a batch.
+        Set<AccessTokenAppIdPair> pairs = new HashSet<>();
+        for (int i = 0; i <= GraphRequest.MAXIMUM_BATCH_SIZE; i++) {
+            pairs.add(new AccessTokenAppIdPair("token" + i, "1234"));
+        }
+        AppEventCollection appEventCollection = Mockito.mock(AppEventCollection.class);
+        Mockito.when(appEventCollection.keySet()).thenReturn(pairs);
+
+        Whitebox.invokeMethod(
+                AppEventQueue.class, "sendEventsToServer", FlushReason.EXPLICIT,
+                appEventCollection);
+
+        ArgumentCaptor<GraphRequestBatch> batch = ArgumentCaptor.forClass(GraphRequestBatch.class);
+        PowerMockito.verifyStatic(Mockito.times(2));
+        GraphRequest.executeBatchAndWait(batch.capture());
+        List<GraphRequestBatch> batches = batch.getAllValues();
+        assertEquals(GraphRequest.MAXIMUM_BATCH_SIZE, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        assertTrue(batches.get(0).isBackgroundPriority());
+        assertTrue(batches.get(1).isBackgroundPriority());
+    }
 }
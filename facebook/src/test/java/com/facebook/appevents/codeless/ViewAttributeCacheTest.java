@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.widget.TextView;
+
+import com.facebook.appevents.codeless.internal.EventBinding;
+import com.facebook.appevents.codeless.internal.PathComponent;
+import com.facebook.internal.Utility;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ViewAttributeCacheTest extends CodelessTestBase {
+
+    @Test
+    public void testHashFollowsValue() {
+        TextView view = new TextView(activity);
+
+        String first = ViewAttributeCache.getHash(view, ViewAttributeCache.TEXT, "first");
+        assertEquals(Utility.sha256hash("first"), first);
+        assertSame(first, ViewAttributeCache.getHash(view, ViewAttributeCache.TEXT, "first"));
+
+        String second = ViewAttributeCache.getHash(view, ViewAttributeCache.TEXT, "second");
+        assertEquals(Utility.sha256hash("second"), second);
+
+        // Attributes are cached independently of each other.
+        assertEquals(
+                Utility.sha256hash("first"),
+                ViewAttributeCache.getHash(view, ViewAttributeCache.TAG, "first"));
+    }
+
+    @Test
+    public void testMatchesHashedTextAfterChange() throws Exception {
+        TextView view = new TextView(activity);
+        view.setText("Buy");
+        PathComponent component = EventBinding.getInstanceFromJson(new JSONObject(
+                "{'event_name': 'sample_event',"
+                        + "'method': 'MANUAL', 'event_type': 'CLICK',"
+                        + "'app_version': '1.0',"
+                        + "'path': [{'class_name': 'android.widget.TextView',"
+                        + " 'text': '" + Utility.sha256hash("Sell") + "', 'match_bitmask': 2}]"
+                        + "}")).getViewPath().get(0);
+
+        assertFalse(CodelessMatcher.ViewMatcher.isTheSameView(view, component, -1));
+        view.setText("Sell");
+        assertTrue(CodelessMatcher.ViewMatcher.isTheSameView(view, component, -1));
+    }
+
+    @Test
+    public void testClassNamesAreSharedByViewsOfTheSameClass() {
+        TextView first = new TextView(activity);
+        TextView second = new TextView(activity);
+
+        assertEquals("android.widget.TextView", ViewAttributeCache.getCanonicalClassName(first));
+        assertSame(
+                ViewAttributeCache.getCanonicalClassName(first),
+                ViewAttributeCache.getCanonicalClassName(second));
+        assertSame(
+                ViewAttributeCache.getSimpleClassName(first),
+                ViewAttributeCache.getSimpleClassName(second));
+    }
+
+    @Test
+    public void testAnonymousViewHasNoCanonicalClassName() {
+        TextView view = new TextView(activity) {
+        };
+
+        assertNull(ViewAttributeCache.getCanonicalClassName(view));
+        assertEquals("", ViewAttributeCache.getSimpleClassName(view));
+    }
+
+    @Test
+    public void testClassNameMatching() throws Exception {
+        PathComponent component = EventBinding.getInstanceFromJson(new JSONObject(
+                "{'event_name': 'sample_event',"
+                        + "'method': 'MANUAL', 'event_type': 'CLICK',"
+                        + "'app_version': '1.0',"
+                        + "'path': [{'class_name': 'android.support.v7.widget.TextView'}]"
+                        + "}")).getViewPath().get(0);
+
+        assertTrue(component.matchesClassName("android.widget.TextView", "TextView"));
+        assertFalse(component.matchesClassName("android.widget.Button", "Button"));
+    }
+}
@@ -23,9 +23,16 @@ package com.facebook.appevents.codeless;
 import com.facebook.appevents.codeless.internal.ViewHierarchy;
 import com.facebook.internal.Utility;
 
+import android.util.JsonWriter;
+import android.view.View;
+
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class ViewHierarchyTest extends CodelessTestBase {
@@ -44,4 +51,27 @@ public class ViewHierarchyTest extends CodelessTestBase {
                         .getString("text");
         assertTrue(innerText.equalsIgnoreCase(Utility.sha256hash("Inner Label")));
     }
+
+    @Test
+    public void testAnonymousClassHasNoClassName() throws Exception {
+        root.addView(new View(activity) {});
+
+        StringWriter buffer = new StringWriter();
+        JsonWriter writer = new JsonWriter(buffer);
+        ViewHierarchy.writeDictionaryOfView(root, writer);
+        writer.flush();
+
+        JSONObject streamed = new JSONObject(buffer.toString());
+        JSONObject anonymous = streamed.getJSONArray("childviews").getJSONObject(2);
+        assertFalse(anonymous.has("classname"));
+        assertTrue(anonymous.has("classtypebitmask"));
+        assertEquals(
+                streamed.toString(), ViewHierarchy.getDictionaryOfView(root).toString());
+
+        JSONObject basicInfo = ViewHierarchy.setBasicInfoOfView(
+                root.getChildAt(2), new JSONObject());
+        assertFalse(basicInfo.has("classname"));
+        assertEquals(anonymous.getJSONObject("dimension").toString(),
+                basicInfo.getJSONObject("dimension").toString());
+    }
 }
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.widget.TextView;
+
+import com.facebook.AccessToken;
+import com.facebook.FacebookSdk;
+import com.facebook.GraphRequest;
+import com.facebook.GraphResponse;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.robolectric.RuntimeEnvironment;
+
+@PrepareForTest({
+        ViewIndexer.class,
+        GraphRequest.class,
+        GraphResponse.class,
+})
+public class ViewIndexerTest extends CodelessTestBase {
+    private ViewIndexer viewIndexer;
+
+    @Before
+    public void before() throws Exception {
+        Whitebox.setInternalState(FacebookSdk.class, "sdkInitialized", true);
+        Whitebox.setInternalState(FacebookSdk.class, "applicationId", "1234");
+        Whitebox.setInternalState(
+                FacebookSdk.class, "applicationContext", RuntimeEnvironment.application);
+        Whitebox.setInternalState(FacebookSdk.class, "executor", new FacebookSerialExecutor());
+
+        GraphResponse response = PowerMockito.mock(GraphResponse.class);
+        PowerMockito.when(response.getJSONObject())
+                .thenReturn(new JSONObject("{\"success\":\"true\"}"));
+        GraphRequest request = PowerMockito.mock(GraphRequest.class);
+        PowerMockito.when(request.executeAndWait()).thenReturn(response);
+        PowerMockito.spy(ViewIndexer.class);
+        PowerMockito.doReturn(request).when(ViewIndexer.class, "buildAppIndexingRequest",
+                Matchers.anyString(), Matchers.any(), Matchers.anyString(), Matchers.anyString());
+
+        viewIndexer = new ViewIndexer(activity);
+    }
+
+    @Test
+    public void testUnchangedTreeIsNotSentAgain() throws Exception {
+        viewIndexer.indexViewTree("Activity", root);
+        viewIndexer.indexViewTree("Activity", root);
+
+        PowerMockito.verifyStatic(Mockito.times(1));
+        ViewIndexer.buildAppIndexingRequest(
+                Matchers.anyString(),
+                Matchers.any(AccessToken.class),
+                Matchers.anyString(),
+                Matchers.anyString());
+    }
+
+    @Test
+    public void testChangedTreeIsSent() throws Exception {
+        viewIndexer.indexViewTree("Activity", root);
+        TextView label = new TextView(activity);
+        label.setText("New Label");
+        root.addView(label);
+        viewIndexer.indexViewTree("Activity", root);
+
+        PowerMockito.verifyStatic(Mockito.times(2));
+        ViewIndexer.buildAppIndexingRequest(
+                Matchers.anyString(),
+                Matchers.any(AccessToken.class),
+                Matchers.anyString(),
+                Matchers.anyString());
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.appevents.codeless;
+
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.facebook.appevents.codeless.internal.Constants;
+import com.facebook.appevents.codeless.internal.EventBinding;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ViewPathTrieTest extends CodelessTestBase {
+
+    private static EventBinding createBinding(String eventName, String path)
+            throws JSONException {
+        String sample =
+                "{'event_name': '" + eventName + "',"
+                        + "'method': 'MANUAL', 'event_type': 'CLICK',"
+                        + "'app_version': '1.0', 'path_type': 'absolute',"
+                        + "'path': [" + path + "]"
+                        + "}";
+        return EventBinding.getInstanceFromJson(new JSONObject(sample));
+    }
+
+    private List<EventBinding> createBindings() throws JSONException {
+        List<EventBinding> bindings = new ArrayList<>();
+        // The inner label.
+        bindings.add(createBinding("inner_label",
+                "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.TextView'}"));
+        // Shares its first two components with the binding above, and matches the inner layout
+        // along with everything under it.
+        bindings.add(createBinding("inner_layout",
+                "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.LinearLayout'}"));
+        // The outer label, selected by index and text.
+        bindings.add(createBinding("outer_label",
+                "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.TextView', 'index': 0,"
+                        + " 'text': 'Outer Label', 'match_bitmask': 2}"));
+        // Text that doesn't match anything.
+        bindings.add(createBinding("no_match",
+                "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.TextView',"
+                        + " 'text': 'Missing', 'match_bitmask': 2}"));
+        return bindings;
+    }
+
+    @Test
+    public void testMatchesSameViewsAsFindViewByPath() throws JSONException {
+        List<EventBinding> bindings = createBindings();
+        ViewPathTrie trie = new ViewPathTrie(bindings, Constants.MAX_TREE_DEPTH);
+
+        ViewSnapshot snapshot = trie.capture(root);
+        List<List<CodelessMatcher.MatchedView>> matches = trie.match(snapshot, "Activity");
+
+        assertEquals(bindings.size(), matches.size());
+        for (int i = 0; i < bindings.size(); i++) {
+            EventBinding binding = bindings.get(i);
+            assertTrue(trie.isCompiled(i));
+
+            List<CodelessMatcher.MatchedView> expected =
+                    CodelessMatcher.ViewMatcher.findViewByPath(
+                            binding, root, binding.getViewPath(), 0, -1, "Activity");
+            List<CodelessMatcher.MatchedView> actual = matches.get(i);
+            assertEquals(binding.getEventName(), expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertSame(expected.get(j).getView(), actual.get(j).getView());
+                assertEquals(expected.get(j).getViewMapKey(), actual.get(j).getViewMapKey());
+            }
+        }
+
+        assertEquals(1, matches.get(0).size());
+        assertEquals(2, matches.get(1).size());
+        assertEquals(1, matches.get(2).size());
+        assertEquals(0, matches.get(3).size());
+    }
+
+    @Test
+    public void testRelativeComponentsAreNotCompiled() throws JSONException {
+        List<EventBinding> bindings = createBindings();
+        bindings.add(createBinding("sibling",
+                "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.TextView'},"
+                        + "{'class_name': '..'}"));
+        ViewPathTrie trie = new ViewPathTrie(bindings, Constants.MAX_TREE_DEPTH);
+
+        assertFalse(trie.isCompiled(bindings.size() - 1));
+        ViewSnapshot snapshot = trie.capture(root);
+        assertTrue(trie.match(snapshot, "Activity").get(bindings.size() - 1).isEmpty());
+    }
+
+    @Test
+    public void testSnapshotCapturesOnlyMatchedAttributes() throws JSONException {
+        ViewPathTrie trie = new ViewPathTrie(createBindings(), Constants.MAX_TREE_DEPTH);
+        ViewSnapshot snapshot = trie.capture(root);
+
+        ViewSnapshot outerLabel = snapshot.children[0];
+        assertEquals("Outer Label", outerLabel.text);
+        assertEquals(null, outerLabel.tag);
+        assertEquals(2, snapshot.children.length);
+        assertEquals(1, snapshot.children[1].children.length);
+    }
+
+    @Test
+    public void testSnapshotSkipsUnreachableViews() throws JSONException {
+        List<EventBinding> bindings = new ArrayList<>();
+        bindings.add(createBinding("outer_label",
+                "{'class_name': 'android.widget.LinearLayout'},"
+                        + "{'class_name': 'android.widget.TextView', 'index': 0}"));
+        ViewPathTrie trie = new ViewPathTrie(bindings, Constants.MAX_TREE_DEPTH);
+        ViewSnapshot snapshot = trie.capture(root);
+
+        assertEquals(2, snapshot.children.length);
+        assertNotNull(snapshot.children[0]);
+        assertNull(snapshot.children[1]);
+        assertEquals(1, trie.match(snapshot, "Activity").get(0).size());
+    }
+
+    @Test
+    public void testSnapshotStopsAtMaxTreeDepth() throws JSONException {
+        LinearLayout deepRoot = new LinearLayout(activity);
+        LinearLayout parent = deepRoot;
+        for (int i = 0; i < Constants.MAX_TREE_DEPTH + 5; i++) {
+            LinearLayout child = new LinearLayout(activity);
+            parent.addView(child);
+            parent = child;
+        }
+        parent.addView(new TextView(activity));
+
+        List<EventBinding> bindings = new ArrayList<>();
+        bindings.add(createBinding("everything", "{'class_name': 'android.widget.LinearLayout'}"));
+        ViewPathTrie trie = new ViewPathTrie(bindings, Constants.MAX_TREE_DEPTH);
+        ViewSnapshot snapshot = trie.capture(deepRoot);
+
+        int depth = 0;
+        while (snapshot.children.length > 0) {
+            snapshot = snapshot.children[0];
+            depth++;
+        }
+        assertEquals(Constants.MAX_TREE_DEPTH, depth);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.content.Context;
+
+import com.facebook.FacebookTestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceContextSnapshotTest extends FacebookTestCase {
+    @Test
+    public void testSnapshotIsReused() {
+        Context context = RuntimeEnvironment.application;
+        DeviceContextSnapshot first = DeviceContextSnapshot.getInstance(context);
+        DeviceContextSnapshot second = DeviceContextSnapshot.getInstance(context);
+
+        assertSame(first, second);
+        assertSame(first.getExtInfo(), second.getExtInfo());
+    }
+
+    @Test
+    public void testInvalidateBuildsNewVersion() {
+        Context context = RuntimeEnvironment.application;
+        DeviceContextSnapshot first = DeviceContextSnapshot.getInstance(context);
+
+        DeviceContextSnapshot.invalidate();
+        DeviceContextSnapshot second = DeviceContextSnapshot.getInstance(context);
+
+        assertNotSame(first, second);
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(first.getExtInfo(), second.getExtInfo());
+    }
+
+    @Test
+    public void testExtendedDeviceInfoParameters() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        JSONObject params = new JSONObject();
+        Utility.setAppEventExtendedDeviceInfoParameters(params, context);
+
+        JSONArray extInfo = new JSONArray(params.getString("extinfo"));
+        DeviceContextSnapshot snapshot = DeviceContextSnapshot.getInstance(context);
+        assertEquals("a2", extInfo.getString(0));
+        assertEquals(context.getPackageName(), extInfo.getString(1));
+        assertEquals(snapshot.getLocale(), extInfo.getString(6));
+        assertEquals(16, extInfo.length());
+    }
+}
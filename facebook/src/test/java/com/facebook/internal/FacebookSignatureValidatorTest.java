@@ -21,6 +21,7 @@
 package com.facebook.internal;
 
 import android.app.Activity;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.Signature;
@@ -34,6 +35,10 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -57,6 +62,7 @@ public class FacebookSignatureValidatorTest extends FacebookPowerMockTestCase {
     mMockActivity = mock(Activity.class);
     mMockPackageManager = mock(PackageManager.class);
     when(mMockActivity.getPackageManager()).thenReturn(mMockPackageManager);
+    FacebookSignatureValidator.clearCache();
   }
 
   @Ignore
@@ -80,6 +86,27 @@ public class FacebookSignatureValidatorTest extends FacebookPowerMockTestCase {
     assertTrue(FacebookSignatureValidator.validateSignature(mMockActivity, PACKAGE_NAME));
   }
 
+  @Test
+  public void testValidationIsCachedUntilPackageIsUpdated() throws Exception {
+    when(mMockActivity.getApplicationInfo()).thenReturn(new ApplicationInfo());
+    PackageInfo packageInfo = new PackageInfo();
+    packageInfo.lastUpdateTime = 1;
+    Signature signature = mock(Signature.class);
+    packageInfo.signatures = new Signature[]{signature};
+    when(mMockPackageManager.getPackageInfo(eq(PACKAGE_NAME), anyInt())).thenReturn(packageInfo);
+    when(Utility.sha1hash(signature.toByteArray())).thenReturn(APP_HASH);
+
+    assertTrue(FacebookSignatureValidator.validateSignature(mMockActivity, PACKAGE_NAME));
+    assertTrue(FacebookSignatureValidator.validateSignature(mMockActivity, PACKAGE_NAME));
+    verify(mMockPackageManager, times(1))
+        .getPackageInfo(PACKAGE_NAME, PackageManager.GET_SIGNATURES);
+
+    packageInfo.lastUpdateTime = 2;
+    assertTrue(FacebookSignatureValidator.validateSignature(mMockActivity, PACKAGE_NAME));
+    verify(mMockPackageManager, times(2))
+        .getPackageInfo(PACKAGE_NAME, PackageManager.GET_SIGNATURES);
+  }
+
   /**
    * Sets up the PackageManager to return what we expect depending on whether app is installed.
    * @param isInstalled true to simulate that app is installed
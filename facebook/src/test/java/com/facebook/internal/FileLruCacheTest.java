@@ -295,6 +295,43 @@ public final class FileLruCacheTest extends FacebookTestCase {
         }
     }
 
+    @Test
+    public void testIndexLoadedFromExistingFiles() throws Exception {
+        int dataSize = 32;
+        int cacheCount = 4;
+        byte[] data = generateBytes(dataSize);
+
+        FileLruCache cache = new FileLruCache(
+                "testIndexLoadedFromExistingFiles", limitCacheCount(cacheCount));
+        try {
+            TestUtils.clearFileLruCache(cache);
+
+            for (int i = 0; i < cacheCount; i++) {
+                put(cache, i, data);
+            }
+
+            // A new instance has to pick up the existing files before it can trim correctly.
+            FileLruCache reopened = new FileLruCache(
+                    "testIndexLoadedFromExistingFiles", limitCacheCount(cacheCount));
+            put(reopened, cacheCount, data);
+            put(reopened, cacheCount + 1, data);
+
+            // sleep for a bit to make sure the trim finishes
+            Thread.sleep(200);
+
+            int remaining = 0;
+            for (int i = 0; i < cacheCount + 2; i++) {
+                if (hasValue(reopened, i)) {
+                    remaining++;
+                }
+            }
+            assertEquals(cacheCount, remaining);
+            assertTrue(hasValue(reopened, cacheCount + 1));
+        } finally {
+            TestUtils.clearAndDeleteLruCacheDirectory(cache);
+        }
+    }
+
     @Test
     public void testConcurrentWritesToSameKey() throws IOException, InterruptedException {
         final int count = 5;
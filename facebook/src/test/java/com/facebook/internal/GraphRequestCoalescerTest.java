@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import com.facebook.FacebookException;
+import com.facebook.FacebookTestCase;
+import com.facebook.GraphRequest;
+import com.facebook.GraphRequestBatch;
+import com.facebook.GraphResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class GraphRequestCoalescerTest extends FacebookTestCase {
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void before() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testCoalescesRequestsMadeWithinWindow() {
+        RecordingCoalescer coalescer = new RecordingCoalescer(100, scheduler);
+        coalescer.enqueue(new GraphRequest(null, "first"));
+        coalescer.enqueue(new GraphRequest(null, "second"));
+        GraphRequest third = new GraphRequest(null, "third");
+
+        GraphResponse response = coalescer.enqueueAndWait(third);
+
+        assertEquals(Collections.singletonList(3), coalescer.getBatchSizes());
+        assertSame(third, coalescer.getLastBatch().get(2));
+        assertSame(coalescer.getLastResponses().get(2), response);
+    }
+
+    @Test
+    public void testSplitsAtMaximumBatchSize() {
+        RecordingCoalescer coalescer = new RecordingCoalescer(10, scheduler);
+        for (int i = 0; i < GraphRequest.MAXIMUM_BATCH_SIZE; i++) {
+            coalescer.enqueue(new GraphRequest(null, "path" + i));
+        }
+
+        coalescer.enqueueAndWait(new GraphRequest(null, "last"));
+
+        List<Integer> expected = new ArrayList<>();
+        expected.add(GraphRequest.MAXIMUM_BATCH_SIZE);
+        expected.add(1);
+        assertEquals(expected, coalescer.getBatchSizes());
+    }
+
+    @Test
+    public void testFailureIsThrownToCaller() {
+        RecordingCoalescer coalescer = new RecordingCoalescer(10, scheduler);
+        coalescer.setFailure(new FacebookException("failed"));
+
+        try {
+            coalescer.enqueueAndWait(new GraphRequest(null, "me"));
+            fail("expected FacebookException");
+        } catch (FacebookException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    private static class RecordingCoalescer extends GraphRequestCoalescer {
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private GraphRequestBatch lastBatch;
+        private List<GraphResponse> lastResponses;
+        private RuntimeException failure;
+
+        RecordingCoalescer(long windowMillis, ScheduledExecutorService scheduler) {
+            super(windowMillis, scheduler);
+        }
+
+        synchronized void setFailure(RuntimeException failure) {
+            this.failure = failure;
+        }
+
+        synchronized List<Integer> getBatchSizes() {
+            return new ArrayList<>(batchSizes);
+        }
+
+        synchronized GraphRequestBatch getLastBatch() {
+            return lastBatch;
+        }
+
+        synchronized List<GraphResponse> getLastResponses() {
+            return lastResponses;
+        }
+
+        @Override
+        synchronized List<GraphResponse> executeBatch(GraphRequestBatch batch) {
+            if (failure != null) {
+                throw failure;
+            }
+            batchSizes.add(batch.size());
+            lastBatch = batch;
+            lastResponses = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                lastResponses.add(mock(GraphResponse.class));
+            }
+            return lastResponses;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import com.facebook.FacebookTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImageMemoryCacheTest extends FacebookTestCase {
+    private static final Uri IMAGE_URI =
+            Uri.parse("https://graph.facebook.com/4/picture?width=100&height=100");
+
+    @Before
+    public void before() {
+        ImageMemoryCache.clearCache();
+    }
+
+    @Test
+    public void testHitAndMissAreCounted() {
+        int hits = ImageMemoryCache.getHitCount();
+        int misses = ImageMemoryCache.getMissCount();
+
+        assertNull(ImageMemoryCache.get(IMAGE_URI, true));
+        assertEquals(misses + 1, ImageMemoryCache.getMissCount());
+
+        Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        ImageMemoryCache.put(IMAGE_URI, bitmap, false);
+
+        ImageMemoryCache.Entry entry = ImageMemoryCache.get(IMAGE_URI, true);
+        assertNotNull(entry);
+        assertSame(bitmap, entry.bitmap);
+        assertEquals(hits + 1, ImageMemoryCache.getHitCount());
+        assertEquals(bitmap.getByteCount(), ImageMemoryCache.getSizeInBytes());
+    }
+
+    @Test
+    public void testSizeIsKeyedByUri() {
+        Uri otherSize = Uri.parse("https://graph.facebook.com/4/picture?width=50&height=50");
+        ImageMemoryCache.put(IMAGE_URI, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888), false);
+
+        assertNull(ImageMemoryCache.get(otherSize, true));
+    }
+
+    @Test
+    public void testRedirectedEntriesRespectRequest() {
+        ImageMemoryCache.put(IMAGE_URI, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888), true);
+
+        assertNull(ImageMemoryCache.get(IMAGE_URI, false));
+        assertNotNull(ImageMemoryCache.get(IMAGE_URI, true));
+    }
+
+    @Test
+    public void testClearEvicts() {
+        ImageMemoryCache.put(IMAGE_URI, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888), false);
+        int evictions = ImageMemoryCache.getEvictionCount();
+
+        ImageMemoryCache.clearCache();
+
+        assertNull(ImageMemoryCache.get(IMAGE_URI, true));
+        assertEquals(0, ImageMemoryCache.getSizeInBytes());
+        assertTrue(ImageMemoryCache.getEvictionCount() > evictions);
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import com.facebook.FacebookTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeepAliveHttpTransportTest extends FacebookTestCase {
+    private LocalHttpServer server;
+
+    @Before
+    public void before() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @After
+    public void after() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testKeepsReusableConnectionAlive() throws Exception {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+
+        get(transport);
+        get(transport);
+
+        assertEquals(1, server.getAcceptedCount());
+    }
+
+    @Test
+    public void testDrainsUnreadBodyOfReusableConnection() throws Exception {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+
+        for (int i = 0; i < 2; i++) {
+            HttpURLConnection connection = transport.openConnection(server.getUrl());
+            assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+            transport.releaseConnection(connection, true);
+        }
+
+        assertEquals(1, server.getAcceptedCount());
+    }
+
+    @Test
+    public void testDisconnectsUnreusableConnection() throws Exception {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+
+        for (int i = 0; i < 2; i++) {
+            HttpURLConnection connection = transport.openConnection(server.getUrl());
+            assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+            transport.releaseConnection(connection, false);
+        }
+
+        assertEquals(2, server.getAcceptedCount());
+    }
+
+    @Test
+    public void testReleasingTwiceIsSafe() throws Exception {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+        HttpURLConnection connection = transport.openConnection(server.getUrl());
+        assertEquals("ok", Utility.readStreamToString(connection.getInputStream()));
+
+        transport.releaseConnection(connection, true);
+        transport.releaseConnection(connection, true);
+        transport.releaseConnection(null, true);
+    }
+
+    private void get(KeepAliveHttpTransport transport) throws IOException {
+        HttpURLConnection connection = transport.openConnection(server.getUrl());
+        InputStream stream = connection.getInputStream();
+        assertEquals("ok", Utility.readStreamToString(stream));
+        transport.releaseConnection(connection, true);
+    }
+
+    // Answers every request with "ok", keeping the connection open between requests.
+    private static class LocalHttpServer implements Runnable {
+        private static final String RESPONSE =
+                "HTTP/1.1 200 OK\r\nContent-Length: 2\r\nContent-Type: text/plain\r\n\r\nok";
+
+        private final ServerSocket serverSocket;
+        private final AtomicInteger acceptedCount = new AtomicInteger();
+
+        LocalHttpServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            Thread thread = new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        URL getUrl() throws IOException {
+            return new URL("http://127.0.0.1:" + serverSocket.getLocalPort() + "/me");
+        }
+
+        int getAcceptedCount() {
+            return acceptedCount.get();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    acceptedCount.incrementAndGet();
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            serve(socket);
+                        }
+                    });
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+                OutputStream output = socket.getOutputStream();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        output.write(RESPONSE.getBytes("US-ASCII"));
+                        output.flush();
+                    }
+                }
+            } catch (IOException e) {
+                // The client went away.
+            } finally {
+                Utility.closeQuietly(socket);
+            }
+        }
+    }
+}
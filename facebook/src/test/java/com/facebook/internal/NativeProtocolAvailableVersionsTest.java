@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import android.content.BroadcastReceiver;
+import android.content.Intent;
+import android.net.Uri;
+
+import com.facebook.FacebookPowerMockTestCase;
+import com.facebook.FacebookSdk;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowApplication;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.powermock.api.support.membermodification.MemberModifier.replace;
+
+@PrepareForTest( {NativeProtocol.class})
+public class NativeProtocolAvailableVersionsTest extends FacebookPowerMockTestCase {
+    private static final String KATANA_PACKAGE = "com.facebook.katana";
+
+    private final QueuedExecutor executor = new QueuedExecutor();
+    private final AtomicInteger katanaFetchCount = new AtomicInteger();
+    private final AtomicBoolean requestUpdateWhileFetching = new AtomicBoolean();
+
+    @Before
+    public void before() throws Exception {
+        Whitebox.setInternalState(FacebookSdk.class, "sdkInitialized", true);
+        Whitebox.setInternalState(
+                FacebookSdk.class, "applicationContext", RuntimeEnvironment.application);
+        Whitebox.setInternalState(FacebookSdk.class, "executor", executor);
+
+        Whitebox.setInternalState(
+                NativeProtocol.class, "availableVersionsByPackage", (Object) null);
+        Whitebox.setInternalState(NativeProtocol.class, "packageReceiverActive", false);
+        for (String flag : new String[] {
+                "packageReceiverRegistered",
+                "protocolVersionsAsyncUpdating",
+                "protocolVersionsUpdateRequested"}) {
+            ((AtomicBoolean) Whitebox.getInternalState(NativeProtocol.class, flag)).set(false);
+        }
+
+        Method fetch = PowerMockito.method(
+                NativeProtocol.class, "fetchAllAvailableProtocolVersionsForAppInfo");
+        replace(fetch).with(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String appPackage = Whitebox.invokeMethod(args[0], "getPackage");
+                if (KATANA_PACKAGE.equals(appPackage)) {
+                    katanaFetchCount.incrementAndGet();
+                }
+                if (requestUpdateWhileFetching.getAndSet(false)) {
+                    NativeProtocol.updateAllAvailableProtocolVersionsAsync();
+                }
+                TreeSet<Integer> versions = new TreeSet<>();
+                versions.add(NativeProtocol.getLatestKnownVersion());
+                return versions;
+            }
+        });
+    }
+
+    @Test
+    public void testMainThreadReportsNoVersionsUntilTableIsBuilt() {
+        int latestVersion = NativeProtocol.getLatestKnownVersion();
+
+        assertEquals(
+                NativeProtocol.NO_PROTOCOL_AVAILABLE,
+                NativeProtocol.getLatestAvailableProtocolVersionForService(latestVersion));
+        assertEquals(0, katanaFetchCount.get());
+        assertEquals(1, executor.queue.size());
+
+        executor.runAll();
+        assertEquals(1, katanaFetchCount.get());
+        assertEquals(
+                latestVersion,
+                NativeProtocol.getLatestAvailableProtocolVersionForService(latestVersion));
+        // The table is served as is, without scheduling another update.
+        assertTrue(executor.queue.isEmpty());
+        assertEquals(1, katanaFetchCount.get());
+    }
+
+    @Test
+    public void testWorkerThreadBuildsTableBeforeFirstUpdate() throws Exception {
+        final int latestVersion = NativeProtocol.getLatestKnownVersion();
+        final AtomicInteger version = new AtomicInteger();
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                version.set(
+                        NativeProtocol.getLatestAvailableProtocolVersionForService(latestVersion));
+            }
+        });
+        worker.start();
+        worker.join();
+
+        assertEquals(latestVersion, version.get());
+        assertEquals(1, katanaFetchCount.get());
+    }
+
+    @Test
+    public void testPackageChangeRebuildsTable() {
+        NativeProtocol.updateAllAvailableProtocolVersionsAsync();
+        executor.runAll();
+        assertEquals(1, katanaFetchCount.get());
+
+        Intent intent = new Intent(
+                Intent.ACTION_PACKAGE_REPLACED, Uri.parse("package:" + KATANA_PACKAGE));
+        List<BroadcastReceiver> receivers =
+                ShadowApplication.getInstance().getReceiversForIntent(intent);
+        assertEquals(1, receivers.size());
+        BroadcastReceiver receiver = receivers.get(0);
+
+        receiver.onReceive(RuntimeEnvironment.application, intent);
+        assertEquals(1, executor.queue.size());
+        executor.runAll();
+        assertEquals(2, katanaFetchCount.get());
+
+        // Packages that aren't native apps are ignored.
+        receiver.onReceive(
+                RuntimeEnvironment.application,
+                new Intent(Intent.ACTION_PACKAGE_REPLACED, Uri.parse("package:com.example")));
+        assertTrue(executor.queue.isEmpty());
+    }
+
+    @Test
+    public void testRequestsAreFoldedIntoRunningUpdate() {
+        NativeProtocol.updateAllAvailableProtocolVersionsAsync();
+        NativeProtocol.updateAllAvailableProtocolVersionsAsync();
+        NativeProtocol.updateAllAvailableProtocolVersionsAsync();
+        assertEquals(1, executor.queue.size());
+        executor.runAll();
+        assertEquals(1, katanaFetchCount.get());
+
+        // A request made while the table is being built is picked up by the same task.
+        requestUpdateWhileFetching.set(true);
+        NativeProtocol.updateAllAvailableProtocolVersionsAsync();
+        assertEquals(1, executor.queue.size());
+        executor.runAll();
+        assertEquals(3, katanaFetchCount.get());
+        assertTrue(executor.queue.isEmpty());
+    }
+
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        void runAll() {
+            while (!queue.isEmpty()) {
+                queue.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.internal;
+
+import com.facebook.FacebookPowerMockTestCase;
+import com.facebook.FacebookTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StartupSchedulerTest extends FacebookTestCase {
+    private ExecutorService executor;
+
+    @Before
+    public void before() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testStagesRunAfterTheirDependencies() {
+        final List<String> order = new ArrayList<>();
+        StartupScheduler scheduler =
+                new StartupScheduler(new FacebookPowerMockTestCase.FacebookSerialExecutor());
+        scheduler.addStage("first", new RecordingTask(order, "first"));
+        scheduler.addStage("second", new RecordingTask(order, "second"), "first");
+        scheduler.addStage("third", new RecordingTask(order, "third"), "first", "second");
+        scheduler.start();
+
+        assertEquals(Arrays.asList("first", "second", "third"), order);
+        assertTrue(scheduler.isFinished("third"));
+        assertEquals(
+                Arrays.asList("first", "second", "third"),
+                new ArrayList<>(scheduler.getStageDurationsMillis().keySet()));
+    }
+
+    @Test
+    public void testAsyncStageHoldsBackDependents() {
+        final List<String> order = new ArrayList<>();
+        final Runnable[] onFinished = new Runnable[1];
+        StartupScheduler scheduler =
+                new StartupScheduler(new FacebookPowerMockTestCase.FacebookSerialExecutor());
+        scheduler.addAsyncStage("async", new StartupScheduler.AsyncStageTask() {
+            @Override
+            public void start(Runnable callback) {
+                onFinished[0] = callback;
+            }
+        });
+        scheduler.addStage("dependent", new RecordingTask(order, "dependent"), "async");
+        scheduler.start();
+
+        assertFalse(scheduler.isFinished("async"));
+        assertTrue(order.isEmpty());
+        assertFalse(scheduler.getStageDurationsMillis().containsKey("async"));
+
+        onFinished[0].run();
+        assertTrue(scheduler.isFinished("async"));
+        assertEquals(Arrays.asList("dependent"), order);
+    }
+
+    @Test
+    public void testFailedStageDoesNotHoldBackDependents() {
+        final List<String> order = new ArrayList<>();
+        StartupScheduler scheduler =
+                new StartupScheduler(new FacebookPowerMockTestCase.FacebookSerialExecutor());
+        scheduler.addStage("failing", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("failed");
+            }
+        });
+        scheduler.addStage("dependent", new RecordingTask(order, "dependent"), "failing");
+        scheduler.start();
+
+        assertTrue(scheduler.isFinished("failing"));
+        assertEquals(Arrays.asList("dependent"), order);
+    }
+
+    @Test
+    public void testIndependentStagesRunInParallel() throws Exception {
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                bothRunning.countDown();
+                try {
+                    bothRunning.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        StartupScheduler scheduler = new StartupScheduler(executor);
+        scheduler.addStage("first", task);
+        scheduler.addStage("second", task);
+        scheduler.start();
+
+        assertTrue(scheduler.awaitFinished("first", 5, TimeUnit.SECONDS));
+        assertTrue(scheduler.awaitFinished("second", 5, TimeUnit.SECONDS));
+        assertEquals(0, bothRunning.getCount());
+    }
+
+    @Test
+    public void testUnknownDependencyThrows() {
+        StartupScheduler scheduler = new StartupScheduler(executor);
+        try {
+            scheduler.addStage(
+                    "stage",
+                    new RecordingTask(new ArrayList<String>(), "stage"),
+                    "none");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static class RecordingTask implements Runnable {
+        private final List<String> order;
+        private final String name;
+
+        RecordingTask(List<String> order, String name) {
+            this.order = order;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            order.add(name);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.share.internal;
+
+import com.facebook.FacebookTestCase;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class VideoChunkReaderTest extends FacebookTestCase {
+
+    private static byte[] createVideo(int size) {
+        byte[] video = new byte[size];
+        for (int i = 0; i < size; i++) {
+            video[i] = (byte) i;
+        }
+        return video;
+    }
+
+    @Test
+    public void testReadsChunksInOrder() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new ByteArrayInputStream(video));
+
+        assertArrayEquals(Arrays.copyOfRange(video, 0, 40), reader.readChunk(0, 40));
+        assertArrayEquals(Arrays.copyOfRange(video, 40, 80), reader.readChunk(40, 80));
+        assertArrayEquals(Arrays.copyOfRange(video, 80, 100), reader.readChunk(80, 100));
+        assertEquals(100, reader.getNextOffset());
+    }
+
+    @Test
+    public void testRetryReturnsSameChunk() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new ByteArrayInputStream(video));
+
+        byte[] chunk = reader.readChunk(0, 40);
+        reader.readAhead(40);
+
+        assertSame(chunk, reader.readChunk(0, 40));
+        assertArrayEquals(Arrays.copyOfRange(video, 40, 80), reader.readChunk(40, 80));
+    }
+
+    @Test
+    public void testReadAheadMatchingNextChunk() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new ByteArrayInputStream(video));
+
+        reader.readChunk(0, 40);
+        reader.readAhead(40);
+        assertEquals(40, reader.getNextOffset());
+
+        assertArrayEquals(Arrays.copyOfRange(video, 40, 80), reader.readChunk(40, 80));
+    }
+
+    @Test
+    public void testReadAheadDifferentFromNextChunk() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new ByteArrayInputStream(video));
+
+        reader.readChunk(0, 40);
+        reader.readAhead(40);
+
+        // Smaller than what was read ahead.
+        assertArrayEquals(Arrays.copyOfRange(video, 40, 50), reader.readChunk(40, 50));
+        // Spans the rest of the read ahead and the stream.
+        assertArrayEquals(Arrays.copyOfRange(video, 50, 100), reader.readChunk(50, 100));
+    }
+
+    @Test
+    public void testOutOfOrderChunkReturnsNull() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new ByteArrayInputStream(video));
+
+        reader.readChunk(0, 40);
+        assertNull(reader.readChunk(50, 60));
+    }
+
+    @Test
+    public void testChunkPastEndOfStreamReturnsNull() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new ByteArrayInputStream(video));
+
+        assertNull(reader.readChunk(0, 120));
+    }
+
+    @Test
+    public void testReadAheadKeepsBytesReadBeforeFailure() throws Exception {
+        byte[] video = createVideo(100);
+        VideoChunkReader reader = new VideoChunkReader(new FailingInputStream(video, 50));
+
+        reader.readChunk(0, 40);
+        try {
+            reader.readAhead(40);
+            fail("expected the read ahead to fail");
+        } catch (IOException e) {
+            // Expected.
+        }
+        assertEquals(40, reader.getNextOffset());
+
+        assertArrayEquals(Arrays.copyOfRange(video, 40, 80), reader.readChunk(40, 80));
+        assertArrayEquals(Arrays.copyOfRange(video, 80, 100), reader.readChunk(80, 100));
+    }
+
+    // Fails once, on the first read that reaches the given offset.
+    private static class FailingInputStream extends InputStream {
+        private final InputStream stream;
+        private final int failAt;
+        private int position;
+        private boolean failed;
+
+        FailingInputStream(byte[] buffer, int failAt) {
+            this.stream = new ByteArrayInputStream(buffer);
+            this.failAt = failAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) == -1 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (!failed && position == failAt) {
+                failed = true;
+                throw new IOException("Read failed");
+            }
+            if (!failed) {
+                length = Math.min(length, failAt - position);
+            }
+            int count = stream.read(buffer, offset, length);
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+    }
+}